@@ -0,0 +1,131 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Include and exclude filter on internal class names, evaluated before any other work of the transformer. Patterns
+ * are given in Java notation and separated by ':', e.g. {@code com.example.*:com.example.util.Strings}. A pattern
+ * ending with '*' matches every class whose name starts with the part before the '*', any other pattern matches
+ * the class and its nested classes. All patterns are compiled into one prefix tree, so a class name is matched in
+ * a single pass over its characters.
+ * <p>
+ * A class is accepted if it matches an include (or no includes are given) and matches no exclude. Classes of the
+ * JDK are always excluded.
+ */
+public class ClassFilter {
+
+    private static final String[] JDK_PREFIXES = {"java.*", "javax.*", "jdk.*", "sun.*", "com.sun.*"};
+
+    private final Trie includes;
+    private final Trie excludes;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param includes include patterns or {@code null}
+     * @param excludes exclude patterns or {@code null}
+     */
+    public ClassFilter(String includes, String excludes) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        for (String prefix : JDK_PREFIXES) {
+            this.excludes.add(prefix);
+        }
+    }
+
+    private static Trie compile(String patterns) {
+        Trie trie = new Trie();
+        if (patterns != null) {
+            for (String pattern : patterns.split(":")) {
+                if (!pattern.trim().isEmpty()) {
+                    trie.add(pattern.trim());
+                }
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * @param className internal name of the class, may be {@code null} for hidden classes
+     */
+    public boolean accepts(String className) {
+        boolean result = className != null
+                && (includes.isEmpty() || includes.matches(className))
+                && !excludes.matches(className);
+        if (result) {
+            accepted.increment();
+        } else {
+            rejected.increment();
+        }
+        return result;
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public String getStatistics() {
+        return String.format("Class filter accepted %d and rejected %d classes", getAccepted(), getRejected());
+    }
+
+    private static class Trie {
+
+        private final Node root = new Node();
+        private boolean empty = true;
+
+        private static class Node {
+            private final Map<Character, Node> children = new HashMap<>(4);
+            /**
+             * A pattern ends with '*' here
+             */
+            private boolean prefix;
+            /**
+             * A pattern without '*' ends here
+             */
+            private boolean exact;
+        }
+
+        private void add(String pattern) {
+            boolean isPrefix = pattern.endsWith("*");
+            String name = pattern.replaceAll("\\*+$", "").replace('.', '/');
+            Node node = root;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), c -> new Node());
+            }
+            if (isPrefix) {
+                node.prefix = true;
+            } else {
+                node.exact = true;
+            }
+            empty = false;
+        }
+
+        private boolean isEmpty() {
+            return empty;
+        }
+
+        private boolean matches(String className) {
+            Node node = root;
+            for (int i = 0; i < className.length(); i++) {
+                if (node.prefix) {
+                    return true;
+                }
+                char c = className.charAt(i);
+                if (c == '$' && node.exact) {
+                    // Nested class of an included class
+                    return true;
+                }
+                node = node.children.get(c);
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.prefix || node.exact;
+        }
+    }
+}
@@ -1,11 +1,16 @@
-
+import data.ProbeSwitch;
 import data.ProjectData;
+import data.TestCoverageRecorder;
+import instr.PreInstrumentedClasses;
+import instr.ProbeMode;
 import lombok.extern.slf4j.Slf4j;
 import utils.JDFCUtils;
 
 import java.lang.instrument.Instrumentation;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 public final class JDFCAgent {
@@ -15,8 +20,63 @@ public final class JDFCAgent {
         List<String> args = Arrays.asList(agentArgs.split(","));
         JDFCUtils.logThis(args.toString(), "test");
         ProjectData.getInstance().saveProjectInfo(args.get(0), args.get(1), args.get(2), args.get(3), args.get(4).equals("inter"));
-        JDFCClassTransformer jdfcClassTransformer = new JDFCClassTransformer(args.get(0), args.get(2), args.get(3), args.get(4).equals("inter"));
+        Map<String, String> options = parseOptions(args.subList(5, args.size()));
+        ProjectData.getInstance().setProbeMode(ProbeMode.fromString(options.get("probes")));
+        if (Boolean.parseBoolean(options.get("perTest"))) {
+            // Per-test attribution snapshots the class-local probe arrays
+            if (!ProjectData.getInstance().getProbeMode().isArrayBased()) {
+                ProjectData.getInstance().setProbeMode(ProbeMode.ARRAY);
+            }
+            TestCoverageRecorder.setEnabled(true);
+        }
+        ProjectData.getInstance().setMinimizeProbes(Boolean.parseBoolean(options.get("minimizeProbes")));
+        ProjectData.getInstance().setLoopFlags(Boolean.parseBoolean(options.get("loopFlags")));
+        ProjectData.getInstance().setSwitchableProbes(Boolean.parseBoolean(options.get("switchableProbes")));
+        ProjectData.getInstance().setPreserveFrames(Boolean.parseBoolean(options.get("preserveFrames")));
+        ProjectData.getInstance().setBytecodeOnly(Boolean.parseBoolean(options.get("bytecodeOnly")));
+        ProjectData.getInstance().setCacheEnabled(Boolean.parseBoolean(options.get("cache")));
+        if (options.containsKey("probesEnabled")) {
+            ProbeSwitch.setEnabled(Boolean.parseBoolean(options.get("probesEnabled")));
+        }
+        if (options.containsKey("perThreadBuffers")) {
+            ProjectData.getInstance().setPerThreadBuffers(Boolean.parseBoolean(options.get("perThreadBuffers")));
+        }
+        // Patterns are separated by ':' because ',' separates the agent arguments
+        ClassFilter classFilter = new ClassFilter(options.get("includes"), options.get("excludes"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> log.debug(classFilter.getStatistics())));
+        JDFCClassTransformer jdfcClassTransformer = new JDFCClassTransformer(args.get(0), args.get(2), args.get(3), args.get(4).equals("inter"),
+                PreInstrumentedClasses.load(), classFilter);
         inst.addTransformer(jdfcClassTransformer);
         JDFCUtils.logThis("End: premain", "callStack");
     }
+
+    /**
+     * Toggles switchable probes of a running JVM, e.g. by loading the agent through the attach API with the
+     * argument {@code probesEnabled=false}.
+     */
+    public static void agentmain(final String agentArgs, final Instrumentation inst) {
+        if (agentArgs == null) {
+            return;
+        }
+        Map<String, String> options = parseOptions(Arrays.asList(agentArgs.split(",")));
+        if (options.containsKey("probesEnabled")) {
+            ProbeSwitch.setEnabled(Boolean.parseBoolean(options.get("probesEnabled")));
+        }
+    }
+
+    /**
+     * Optional agent arguments are passed as key=value pairs after the positional arguments.
+     */
+    private static Map<String, String> parseOptions(List<String> args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int idx = arg.indexOf('=');
+            if (idx > 0) {
+                options.put(arg.substring(0, idx).trim(), arg.substring(idx + 1).trim());
+            } else if (!arg.trim().isEmpty()) {
+                options.put(arg.trim(), "true");
+            }
+        }
+        return options;
+    }
 }
@@ -1,5 +1,5 @@
 import instr.Instrumenter;
-import lombok.AllArgsConstructor;
+import instr.PreInstrumentedClasses;
 import lombok.extern.slf4j.Slf4j;
 import utils.JDFCUtils;
 
@@ -11,22 +11,44 @@ import java.security.ProtectionDomain;
 import java.util.Objects;
 
 @Slf4j
-@AllArgsConstructor
 public class JDFCClassTransformer implements ClassFileTransformer {
 
     private final String workDirAbs;
     private final String classesDirRel;
     private final String sourceDirRel;
     private final boolean isInterProcedural;
+    private final PreInstrumentedClasses preInstrumentedClasses;
+    private final ClassFilter classFilter;
+    private final String classesDirAbs;
+    private final String sourceDirAbs;
+
+    public JDFCClassTransformer(String workDirAbs, String classesDirRel, String sourceDirRel, boolean isInterProcedural,
+                                PreInstrumentedClasses preInstrumentedClasses, ClassFilter classFilter) {
+        this.workDirAbs = workDirAbs;
+        this.classesDirRel = classesDirRel;
+        this.sourceDirRel = sourceDirRel;
+        this.isInterProcedural = isInterProcedural;
+        this.preInstrumentedClasses = preInstrumentedClasses;
+        this.classFilter = classFilter;
+        this.classesDirAbs = String.format("%s%s%s", workDirAbs, File.separator, classesDirRel);
+        this.sourceDirAbs = String.format("%s%s%s", workDirAbs, File.separator, sourceDirRel);
+    }
 
     @Override
     public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
-        String classesDirAbs = String.format("%s%s%s", workDirAbs, File.separator, classesDirRel);
-        String sourceDirAbs = String.format("%s%s%s", workDirAbs, File.separator, sourceDirRel);
+        // Most classes loaded by the JVM are not part of the project, reject them before anything else
+        if (!classFilter.accepts(className)) {
+            return classfileBuffer;
+        }
         boolean isInstrumentationRequired = this.getIsInstrumentationRequired(protectionDomain, classesDirAbs);
         if (isInstrumentationRequired) {
             String classFileAbs = String.format("%s%s%s%s", classesDirAbs, File.separator, className, ".class");
             JDFCUtils.logThis(classFileAbs, "transform");
+            // Classes instrumented ahead of time are served as they are, only changed classes are analysed
+            byte[] preInstrumented = preInstrumentedClasses.get(className, classfileBuffer);
+            if (preInstrumented != null) {
+                return preInstrumented;
+            }
             Instrumenter instrumenter = new Instrumenter(workDirAbs, classesDirAbs, sourceDirAbs, isInterProcedural);
             return instrumenter.instrumentClass(classfileBuffer, classFileAbs);
         }
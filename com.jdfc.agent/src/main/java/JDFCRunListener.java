@@ -0,0 +1,27 @@
+import data.TestCoverageRecorder;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * JUnit 4 listener for per-test coverage. Register it e.g. with the surefire property {@code listener}.
+ * It only records data if the agent was started with {@code perTest=true}.
+ */
+@RunListener.ThreadSafe
+public class JDFCRunListener extends RunListener {
+
+    @Override
+    public void testStarted(Description description) {
+        TestCoverageRecorder.testStarted();
+    }
+
+    @Override
+    public void testFinished(Description description) {
+        TestCoverageRecorder.testFinished(String.format("%s#%s", description.getClassName(), description.getMethodName()));
+    }
+
+    @Override
+    public void testRunFinished(Result result) {
+        TestCoverageRecorder.flush();
+    }
+}
@@ -0,0 +1,31 @@
+import data.TestCoverageRecorder;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+/**
+ * JUnit Platform listener for per-test coverage. It is registered automatically through the service loader and
+ * only records data if the agent was started with {@code perTest=true}.
+ */
+public class JDFCTestExecutionListener implements TestExecutionListener {
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        if (testIdentifier.isTest()) {
+            TestCoverageRecorder.testStarted();
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        if (testIdentifier.isTest()) {
+            TestCoverageRecorder.testFinished(testIdentifier.getUniqueId());
+        }
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        TestCoverageRecorder.flush();
+    }
+}
@@ -1,4 +1,5 @@
 import data.ProjectData;
+import instr.ProbeMode;
 import org.apache.commons.cli.*;
 import org.junit.Test;
 import report.ReportGenerator;
@@ -48,6 +49,13 @@ public class Main {
             // Instrument
             parsePathOptions(cmd, false);
             ProjectData.getInstance().saveProjectInfo(workDirAbs, buildDirAbs, classesDirAbs, sourceDirAbs, isInterProcedural);
+            ProjectData.getInstance().setProbeMode(ProbeMode.fromString(cmd.getOptionValue("p")));
+            ProjectData.getInstance().setMinimizeProbes(cmd.hasOption("m"));
+            ProjectData.getInstance().setLoopFlags(cmd.hasOption("l"));
+            ProjectData.getInstance().setSwitchableProbes(cmd.hasOption("t"));
+            ProjectData.getInstance().setPreserveFrames(cmd.hasOption("f"));
+            ProjectData.getInstance().setBytecodeOnly(cmd.hasOption("b"));
+            ProjectData.getInstance().setCacheEnabled(cmd.hasOption("c"));
             Instrumenter instrumenter = new Instrumenter(workDirAbs, classesDirAbs, sourceDirAbs, isInterProcedural);
             String classFqn = cmd.getOptionValue("i");
             if (classFqn != null) {
@@ -62,9 +70,10 @@ public class Main {
                 // Print class path
                 System.out.println(System.getProperty("java.class.path").replace(":", "\n"));
                 List<File> classFiles = instrumenter.loadClassFiles();
-                for (File classFile : classFiles) {
-                    instrumenter.instrumentClass(classFile.getAbsolutePath());
-                }
+                int threads = cmd.hasOption("j")
+                        ? Integer.parseInt(cmd.getOptionValue("j"))
+                        : Runtime.getRuntime().availableProcessors();
+                instrumenter.instrumentClasses(classFiles, threads);
             }
         }
 
@@ -149,6 +158,66 @@ public class Main {
                 .build();
         options.addOption(scope);
 
+        Option probes = Option.builder()
+                .option("p")
+                .longOpt("probes")
+                .argName("probes")
+                .hasArg()
+                .desc("Probe type. \n   \"string\": call to ProjectData.trackVar (default)\n   \"array\": per-class boolean array\n   \"count\": per-class hit counters\n   \"pair\": per-class boolean array with exact def-use pairs")
+                .build();
+        options.addOption(probes);
+
+        Option minimize = Option.builder()
+                .option("m")
+                .longOpt("minimize")
+                .desc("Leave out probes that are implied by other probes. Not applied to probe type \"count\".")
+                .build();
+        options.addOption(minimize);
+
+        Option loopFlags = Option.builder()
+                .option("l")
+                .longOpt("loopFlags")
+                .desc("Execute probes within loops only once per method invocation. Not applied to probe type \"count\".")
+                .build();
+        options.addOption(loopFlags);
+
+        Option switchable = Option.builder()
+                .option("t")
+                .longOpt("switchable")
+                .desc("Guard probes with a switch that can be toggled at runtime through the agent.")
+                .build();
+        options.addOption(switchable);
+
+        Option preserveFrames = Option.builder()
+                .option("f")
+                .longOpt("preserveFrames")
+                .desc("Keep the stack map frames of the original classes instead of recomputing them.")
+                .build();
+        options.addOption(preserveFrames);
+
+        Option bytecodeOnly = Option.builder()
+                .option("b")
+                .longOpt("bytecodeOnly")
+                .desc("Analyse the class files only and parse the source files when the report is created.")
+                .build();
+        options.addOption(bytecodeOnly);
+
+        Option cache = Option.builder()
+                .option("c")
+                .longOpt("cache")
+                .desc("Reuse instrumented classes of previous runs whose class file, source file and options are unchanged.")
+                .build();
+        options.addOption(cache);
+
+        Option threads = Option.builder()
+                .option("j")
+                .longOpt("threads")
+                .argName("threads")
+                .hasArg()
+                .desc("Number of threads used to instrument all classes. Default: number of processors")
+                .build();
+        options.addOption(threads);
+
         // Report creation
         Option report = Option.builder()
                 .option("r")
@@ -216,6 +285,19 @@ public class Main {
         System.out.println(" -s, --scope        Analysis scope. ");
         System.out.println("                    \"intra\": intra-procedural");
         System.out.println("                    \"inter\": inter-procedural");
+        System.out.println(" -p, --probes       Probe type. Default: string");
+        System.out.println("                    \"string\": call to ProjectData.trackVar");
+        System.out.println("                    \"array\": per-class boolean array");
+        System.out.println("                    \"count\": per-class hit counters");
+        System.out.println("                    \"pair\": per-class boolean array with exact def-use pairs");
+        System.out.println(" -m, --minimize     Leave out probes that are implied by other probes. [Optional]");
+        System.out.println(" -l, --loopFlags    Execute probes within loops only once per method invocation. [Optional]");
+        System.out.println(" -t, --switchable   Guard probes with a switch that can be toggled at runtime. [Optional]");
+        System.out.println(" -f, --preserveFrames Keep the stack map frames of the original classes. [Optional]");
+        System.out.println(" -b, --bytecodeOnly Analyse class files without their sources. [Optional]");
+        System.out.println(" -c, --cache        Reuse unchanged instrumented classes of previous runs. [Optional]");
+        System.out.println(" -j, --threads      Number of threads used to instrument all classes. ");
+        System.out.println("                    Default: number of processors [Optional]");
         System.out.println(" -r, --report       Report type. Default: xml + html ");
         System.out.println("                    \"xml\": xml report");
         System.out.println("                    \"html\": html report");
@@ -1,6 +1,7 @@
 package ant;
 
 import data.ProjectData;
+import instr.ProbeMode;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Task;
@@ -26,6 +27,22 @@ public class InstrumentTask extends Task {
 
     private String scope;
 
+    private String probes;
+
+    private boolean minimize;
+
+    private boolean loopFlags;
+
+    private boolean switchable;
+
+    private boolean preserveFrames;
+
+    private boolean bytecodeOnly;
+
+    private boolean cache;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
     public void addFileset(FileSet fileset) {
         filesets.add(fileset);
     }
@@ -46,6 +63,38 @@ public class InstrumentTask extends Task {
         this.scope = scope;
     }
 
+    public void setProbes(String probes) {
+        this.probes = probes;
+    }
+
+    public void setMinimize(boolean minimize) {
+        this.minimize = minimize;
+    }
+
+    public void setLoopFlags(boolean loopFlags) {
+        this.loopFlags = loopFlags;
+    }
+
+    public void setSwitchable(boolean switchable) {
+        this.switchable = switchable;
+    }
+
+    public void setPreserveFrames(boolean preserveFrames) {
+        this.preserveFrames = preserveFrames;
+    }
+
+    public void setBytecodeOnly(boolean bytecodeOnly) {
+        this.bytecodeOnly = bytecodeOnly;
+    }
+
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
 
     @Override
     public void execute() {
@@ -59,16 +108,24 @@ public class InstrumentTask extends Task {
         String classesDirAbs = String.join(File.separator, workDirAbs, classes);
         String sourceDirAbs = String.join(File.separator, workDirAbs, src);
         ProjectData.getInstance().saveProjectInfo(workDirAbs, buildDirAbs, classesDirAbs, sourceDirAbs, isInterProcedural);
+        ProjectData.getInstance().setProbeMode(ProbeMode.fromString(this.probes));
+        ProjectData.getInstance().setMinimizeProbes(this.minimize);
+        ProjectData.getInstance().setLoopFlags(this.loopFlags);
+        ProjectData.getInstance().setSwitchableProbes(this.switchable);
+        ProjectData.getInstance().setPreserveFrames(this.preserveFrames);
+        ProjectData.getInstance().setBytecodeOnly(this.bytecodeOnly);
+        ProjectData.getInstance().setCacheEnabled(this.cache);
         Instrumenter instrumenter = new Instrumenter(workDirAbs, classesDirAbs, sourceDirAbs, isInterProcedural);
         // Print class path
         System.err.println(System.getProperty("java.class.path").replace(":", "\n"));
+        List<File> classFiles = new ArrayList<>();
         for (FileSet fs : filesets) {
             DirectoryScanner ds = fs.getDirectoryScanner(getProject());
             for (String includedFile : ds.getIncludedFiles()) {
-                String classFileAbs = String.join(File.separator, classesDirAbs, includedFile);
-                instrumenter.instrumentClass(classFileAbs);
+                classFiles.add(new File(String.join(File.separator, classesDirAbs, includedFile)));
             }
         }
+        instrumenter.instrumentClasses(classFiles, this.threads);
     }
 
     private void logToFile(String text) {
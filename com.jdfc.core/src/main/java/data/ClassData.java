@@ -2,11 +2,14 @@ package data;
 
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import instr.ClassMetaData;
+import instr.PairProbeLayout;
+import instr.ProbeMinimizer;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.Opcodes;
 import utils.JDFCUtils;
 
 import java.io.*;
@@ -33,6 +36,26 @@ public class ClassData implements Serializable {
 
     private Map<Integer, UUID> lineToMethodIdMap;
 
+    /**
+     * Program variable ids ordered by their probe index. Only used for {@link instr.ProbeMode#ARRAY}.
+     */
+    private List<UUID> probeIds;
+
+    private transient Map<UUID, Integer> probeIndexMap;
+
+    /**
+     * Def-use pair ids of the pair probes that follow the program variable probes, {@code null} for slots
+     * without a pair. Only used for {@link instr.ProbeMode#PAIR}.
+     */
+    private List<UUID> pairProbeIds;
+
+    private transient PairProbeLayout pairProbeLayout;
+
+    /**
+     * Ids of the program variables whose probe was elided by id of the program variable whose probe implies it.
+     */
+    private Map<UUID, UUID> impliedProbeIds;
+
     private int total = 0;
 
     private int covered = 0;
@@ -41,6 +64,42 @@ public class ClassData implements Serializable {
 
     private int methodCount = 0;
 
+    /**
+     * Lookup structures for the methods of the class, built on first use. Call {@link #invalidateMethodIndex()}
+     * when methods are added or their line ranges change.
+     */
+    private transient volatile MethodIndex methodIndex;
+
+    private static class MethodIndex {
+
+        private final Map<UUID, MethodData> byId = new HashMap<>();
+
+        private final Map<String, MethodData> byInternalName = new HashMap<>();
+
+        /**
+         * Keyed by internal name without signature and exceptions, see {@link #getMethodByShortInternalName(String)}
+         */
+        private final Map<String, MethodData> byShortInternalName = new HashMap<>();
+
+        /**
+         * Disjoint line segments by their first line. A segment maps to the innermost method whose line range
+         * contains it, e.g. a lambda within its enclosing method, or to null if no method contains it.
+         */
+        private final NavigableMap<Integer, MethodData> byLine = new TreeMap<>();
+
+        private void addLineRange(MethodData mData) {
+            int begin = mData.getBeginLine();
+            int end = mData.getEndLine();
+            if (end < begin || end == Integer.MAX_VALUE) {
+                return;
+            }
+            Map.Entry<Integer, MethodData> after = byLine.floorEntry(end + 1);
+            byLine.subMap(begin, true, end + 1, true).clear();
+            byLine.put(begin, mData);
+            byLine.put(end + 1, after == null ? null : after.getValue());
+        }
+    }
+
     public ClassData(UUID id, ClassMetaData classMetaData, Map<String, String> nestedTypeMap) {
         this.id = id;
         this.classMetaData = classMetaData;
@@ -50,40 +109,163 @@ public class ClassData implements Serializable {
     }
 
     public Map<UUID, MethodData> getMethodDataFromStore() {
-        Map<UUID, MethodData> methodDataMap = new HashMap<>();
-        for (UUID id : this.methodDataIds) {
-            methodDataMap.put(id, ProjectData.getInstance().getMethodDataMap().get(id));
-        }
-        return methodDataMap;
+        return Collections.unmodifiableMap(this.getMethodIndex().byId);
     }
 
     public MethodData getMethodByInternalName(String internalName) {
-        for(MethodData mData : this.getMethodDataFromStore().values()) {
-            if (mData.buildInternalMethodName().equals(internalName)) {
-                return mData;
-            }
-        }
-
-        return null;
+        return this.getMethodIndex().byInternalName.get(internalName);
     }
 
+    /**
+     * @param internalName internal name of the method built from name and descriptor only
+     * @return a method whose internal name contains the given name
+     */
     public MethodData getMethodByShortInternalName(String internalName) {
-        for(MethodData mData : this.getMethodDataFromStore().values()) {
+        MethodIndex index = this.getMethodIndex();
+        MethodData result = index.byShortInternalName.get(internalName);
+        if (result != null) {
+            return result;
+        }
+        // Methods with a generic signature are not part of the index
+        for (MethodData mData : index.byInternalName.values()) {
             if (mData.buildInternalMethodName().contains(internalName)) {
                 return mData;
             }
         }
-
         return null;
     }
 
     public MethodData getMethodByLineNumber(int lNr) {
-        for(MethodData mData : this.getMethodDataFromStore().values()) {
-            if (mData.getBeginLine() <= lNr && lNr <= mData.getEndLine()) {
-                return mData;
+        Map.Entry<Integer, MethodData> segment = this.getMethodIndex().byLine.floorEntry(lNr);
+        return segment == null ? null : segment.getValue();
+    }
+
+    public void invalidateMethodIndex() {
+        this.methodIndex = null;
+    }
+
+    private MethodIndex getMethodIndex() {
+        MethodIndex index = this.methodIndex;
+        if (index != null) {
+            return index;
+        }
+        index = new MethodIndex();
+        boolean isComplete = true;
+        for (UUID id : this.methodDataIds) {
+            MethodData mData = ProjectData.getInstance().getMethodDataMap().get(id);
+            index.byId.put(id, mData);
+            if (mData == null) {
+                isComplete = false;
+                continue;
             }
+            String internalName = mData.buildInternalMethodName();
+            index.byInternalName.put(internalName, mData);
+            index.byShortInternalName.putIfAbsent(
+                    String.format("%s: %s", mData.getName(), mData.getDesc().split(" \\[")[0]), mData);
         }
-        return null;
+        // Outer methods first, so that nested line ranges override them. Of methods with the same line range, e.g.
+        // a lambda resolved to its enclosing declaration, the declared method wins.
+        index.byInternalName.values().stream()
+                .sorted(Comparator.comparingLong((MethodData m) -> (long) m.getEndLine() - m.getBeginLine()).reversed()
+                        .thenComparing(m -> (m.getAccess() & Opcodes.ACC_SYNTHETIC) == 0))
+                .forEachOrdered(index::addLineRange);
+        // Methods may not be stored yet, e.g. while the class is analysed
+        if (isComplete) {
+            this.methodIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Assigns a dense, class-local probe index to every program variable of the class. The order is
+     * deterministic so that repeated instrumentation of the same class yields the same layout.
+     */
+    public void assignProbeIds() {
+        List<ProgramVariable> pVars = new ArrayList<>();
+        for (MethodData mData : this.getMethodDataFromStore().values()) {
+            for (ProgramVariable pVar : mData.getPVarsFromStore().values()) {
+                if (pVar != null) {
+                    pVars.add(pVar);
+                }
+            }
+        }
+        pVars.sort(Comparator.comparing(ProgramVariable::getMethodName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparing(ProgramVariable::getInstructionIndex, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()))
+                .thenComparing(ProgramVariable::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparing(ProgramVariable::getIsDefinition, Comparator.nullsFirst(Comparator.<Boolean>naturalOrder())));
+
+        this.probeIds = new ArrayList<>(pVars.size());
+        this.probeIndexMap = new HashMap<>();
+        for (ProgramVariable pVar : pVars) {
+            probeIndexMap.put(pVar.getId(), probeIds.size());
+            probeIds.add(pVar.getId());
+        }
+    }
+
+    /**
+     * Computes the layout of the pair probes, which are appended to the program variable probes. Requires
+     * {@link #assignProbeIds()}.
+     */
+    public void assignPairProbeIds() {
+        this.pairProbeLayout = new PairProbeLayout(this, this.probeIds.size());
+        this.pairProbeIds = pairProbeLayout.getPairProbeIds();
+    }
+
+    /**
+     * Determines the probes that are implied by other probes, see {@link ProbeMinimizer}.
+     */
+    public void minimizeProbes() {
+        this.impliedProbeIds = new HashMap<>();
+        for (MethodData mData : this.getMethodDataFromStore().values()) {
+            impliedProbeIds.putAll(ProbeMinimizer.minimize(mData));
+        }
+    }
+
+    /**
+     * @return true if no probe is inserted for the program variable, because another probe implies it
+     */
+    public boolean isImpliedProbe(UUID pVarId) {
+        return impliedProbeIds != null && impliedProbeIds.containsKey(pVarId);
+    }
+
+    public int getProbeCount() {
+        int count = probeIds == null ? 0 : probeIds.size();
+        return pairProbeIds == null ? count : count + pairProbeIds.size();
+    }
+
+    /**
+     * @return the probe index of the program variable or -1 if it has none
+     */
+    public int getProbeIndex(UUID pVarId) {
+        if (probeIndexMap == null) {
+            if (probeIds == null) {
+                return -1;
+            }
+            probeIndexMap = new HashMap<>();
+            for (int i = 0; i < probeIds.size(); i++) {
+                probeIndexMap.put(probeIds.get(i), i);
+            }
+        }
+        Integer index = probeIndexMap.get(pVarId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param limit maximum number of returned variables
+     * @return the definitions and uses of this class with the highest hit counts, hottest first
+     */
+    public List<ProgramVariable> getHottestPVars(int limit) {
+        ProjectData pData = ProjectData.getInstance();
+        List<ProgramVariable> hottest = new ArrayList<>();
+        for (MethodData mData : this.getMethodDataFromStore().values()) {
+            for (ProgramVariable pVar : mData.getPVarsFromStore().values()) {
+                if (pVar != null && pData.getHitCount(pVar.getId()) > 0) {
+                    hottest.add(pVar);
+                }
+            }
+        }
+        hottest.sort(Comparator.comparingLong((ProgramVariable pVar) -> pData.getHitCount(pVar.getId())).reversed());
+        return hottest.size() > limit ? new ArrayList<>(hottest.subList(0, limit)) : hottest;
     }
 
     @Override
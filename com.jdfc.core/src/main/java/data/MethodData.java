@@ -6,6 +6,7 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import graphs.cfg.CFG;
+import graphs.cfg.FrameAnalysis;
 import graphs.cfg.LocalVariable;
 import graphs.cfg.nodes.CFGCallNode;
 import graphs.cfg.nodes.CFGNode;
@@ -24,7 +25,6 @@ import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 import static utils.Constants.ZERO_ID;
 
@@ -92,6 +92,11 @@ public class MethodData implements Serializable {
      */
     private transient Map<Integer, LocalVariable> localVariableTable;
 
+    /**
+     * Frames and control flow edges of the compiled method
+     */
+    private transient FrameAnalysis frameAnalysis;
+
     /**
      * CFG of compiled method
      */
@@ -102,6 +107,12 @@ public class MethodData implements Serializable {
      */
     private Set<UUID> pVarIds;
 
+    /**
+     * Program variable ids by the fields compared in {@link #findVarId(ProgramVariable)}. Built on first lookup and
+     * maintained by {@link #addPVar(ProgramVariable)}.
+     */
+    private transient Map<List<Object>, UUID> pVarIndex;
+
     /**
      * Inter-procedural SG of compiled method
      */
@@ -209,20 +220,30 @@ public class MethodData implements Serializable {
         }
     }
 
+    /**
+     * Stores the program variable and adds it to this method.
+     */
+    public void addPVar(ProgramVariable pVar) {
+        ProjectData.getInstance().getProgramVariableMap().put(pVar.getId(), pVar);
+        this.pVarIds.add(pVar.getId());
+        if (this.pVarIndex != null) {
+            this.pVarIndex.putIfAbsent(createPVarKey(pVar), pVar.getId());
+        }
+    }
+
+    /**
+     * @return the id of the program variable of this method with the same class, method, name, descriptor, line,
+     * instruction and kind or {@code null} if there is none
+     */
     public UUID findVarId(ProgramVariable var) {
-        for (UUID id : this.pVarIds) {
-            ProgramVariable v = ProjectData.getInstance().getProgramVariableMap().get(id);
-            if (Objects.equals(v.getClassName(), var.getClassName())
-                    && Objects.equals(v.getMethodName(), var.getMethodName())
-                    && Objects.equals(v.getName(), var.getName())
-                    && Objects.equals(v.getDescriptor(), var.getDescriptor())
-                    && Objects.equals(v.getLineNumber(), var.getLineNumber())
-                    && Objects.equals(v.getInstructionIndex(), var.getInstructionIndex())
-                    && Objects.equals(v.getIsDefinition(), var.getIsDefinition())) {
-                return id;
+        if (this.pVarIndex == null) {
+            this.pVarIndex = new HashMap<>();
+            for (UUID id : this.pVarIds) {
+                ProgramVariable v = ProjectData.getInstance().getProgramVariableMap().get(id);
+                this.pVarIndex.putIfAbsent(createPVarKey(v), id);
             }
         }
-        return null;
+        return this.pVarIndex.get(createPVarKey(var));
     }
 
     public Map<UUID, ProgramVariable> getPVarsFromStore() {
@@ -275,12 +296,10 @@ public class MethodData implements Serializable {
     }
 
     private void createDefUsePair(ProgramVariable def, ProgramVariable use) {
-        Map<UUID, PairData> pairs = ProjectData.getInstance().getDefUsePairMap();
-        UUID id = UUID.randomUUID();
+        UUID id = JDFCUtils.createId(this.id, "pair", def.getId(), use.getId());
         PairData newPair = new PairData(id, this.className, this.buildInternalMethodName(), def.getId(), use.getId());
-        if(!pairs.containsValue(newPair)) {
+        if (ProjectData.getInstance().putDefUsePair(newPair)) {
             this.duPairIds.add(id);
-            pairs.put(id, newPair);
             if (def.getInstructionIndex() == Integer.MIN_VALUE) {
                 def.setIsCovered(true);
             }
@@ -352,12 +371,7 @@ public class MethodData implements Serializable {
                     if (match == null) {
                         continue;
                     }
-                    Set<PairData> duPairs = ProjectData.getInstance().getDefUsePairMap().values()
-                            .stream()
-                            .filter(x -> x.getUseId().equals(match.getId()))
-                            .collect(Collectors.toSet());
-                    Set<UUID> defIds = duPairs.stream().map(PairData::getDefId).collect(Collectors.toSet());
-                    for (UUID defId : defIds) {
+                    for (UUID defId : ProjectData.getInstance().getDefinitionIds(match.getId())) {
                         indexDefinitionsMap.put(paramEntry.getKey(), ProjectData.getInstance().getProgramVariableMap().get(defId));
                     }
                 }
@@ -368,6 +382,11 @@ public class MethodData implements Serializable {
 
 
     // --- Private Methods ---------------------------------------------------------------------------------------------
+    private static List<Object> createPVarKey(ProgramVariable var) {
+        return Arrays.asList(var.getClassName(), var.getMethodName(), var.getName(), var.getDescriptor(),
+                var.getLineNumber(), var.getInstructionIndex(), var.getIsDefinition());
+    }
+
     private int extractBegin(MethodDeclaration srcAst) {
         Optional<Position> posOpt = srcAst.getBegin();
         if(posOpt.isPresent()) {
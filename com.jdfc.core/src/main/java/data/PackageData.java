@@ -1,10 +1,12 @@
 package data;
 
 import lombok.Data;
+import utils.JDFCUtils;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Data
 public class PackageData implements Serializable {
@@ -21,10 +23,10 @@ public class PackageData implements Serializable {
     private Set<UUID> classDataIds;
 
     public PackageData(String relPath) {
-        this.id = UUID.randomUUID();
+        this.id = JDFCUtils.createId("package", relPath);
         this.relPath = relPath;
         this.fqn = relPath.replace(File.separator, ".").substring(1);
-        this.classDataIds = new HashSet<>();
+        this.classDataIds = ConcurrentHashMap.newKeySet();
     }
 
     public Map<UUID, ClassData> getClassDataFromStore() {
@@ -0,0 +1,240 @@
+package data;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runtime registry of the classes instrumented with {@link instr.ProbeMode#ARRAY}, {@link instr.ProbeMode#COUNT}
+ * or {@link instr.ProbeMode#PAIR}. Probes only write into the class-local {@code __jdfc_test_data} array. A class
+ * registers itself the first time one of its methods with probes is entered. The registry owns the probe array of
+ * every class and returns the same array on every registration, so hits are never written into an array that is
+ * no longer collected. Coverage is collected by copying and clearing the arrays of the registered classes.
+ * <p>
+ * The last element of every probe array is not a probe but the touched flag of the class. {@code __jdfc_initialize}
+ * checks it on every method entry and calls {@link #touch(Class)} if it is not set, so that {@link #snapshot()}
+ * only visits the classes entered since the previous snapshot.
+ */
+public class ProbeRegistry {
+
+    private static final Map<Class<?>, ClassProbes> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Classes entered since the last {@link #snapshot()}. Only these can have new hits.
+     */
+    private static final Set<ClassProbes> touched = ConcurrentHashMap.newKeySet();
+
+    private ProbeRegistry() {
+    }
+
+    private static class ClassProbes {
+        private final String classId;
+        /**
+         * Live probe array of the class, written by its probes, followed by the touched flag
+         */
+        private final boolean[] data;
+        /**
+         * Live hit counter array of the class, written by its probes in {@link instr.ProbeMode#COUNT}, followed by
+         * the touched flag
+         */
+        private final long[] countData;
+        private final boolean[] covered;
+        private long[] counts;
+
+        private ClassProbes(String classId, int size, boolean isCount) {
+            this.classId = classId;
+            this.data = isCount ? null : new boolean[size + 1];
+            this.countData = isCount ? new long[size + 1] : null;
+            this.covered = new boolean[size];
+        }
+    }
+
+    /**
+     * Called from {@code __jdfc_initialize} of instrumented classes.
+     *
+     * @param clazz the instrumented class
+     * @param classId id of the {@link ClassData} of the instrumented class
+     * @param size number of probes of the class
+     * @return the probe array of the class, followed by its touched flag
+     */
+    public static boolean[] register(final Class<?> clazz, final String classId, final int size) {
+        return classes.computeIfAbsent(clazz, k -> new ClassProbes(classId, size, false)).data;
+    }
+
+    /**
+     * Called from {@code __jdfc_initialize} of classes instrumented with {@link instr.ProbeMode#COUNT}.
+     *
+     * @return the hit counter array of the class
+     */
+    public static long[] registerCounts(final Class<?> clazz, final String classId, final int size) {
+        return classes.computeIfAbsent(clazz, k -> new ClassProbes(classId, size, true)).countData;
+    }
+
+    /**
+     * Called from {@code __jdfc_initialize} of instrumented classes on the first method entry after a snapshot.
+     * Sets the touched flag of the class and adds it to the classes visited by the next snapshot.
+     *
+     * @param clazz the instrumented class
+     */
+    public static void touch(final Class<?> clazz) {
+        ClassProbes probes = classes.get(clazz);
+        if (probes == null) {
+            return;
+        }
+        if (probes.countData != null) {
+            probes.countData[probes.covered.length] = 1;
+        } else {
+            probes.data[probes.covered.length] = true;
+        }
+        touched.add(probes);
+    }
+
+    /**
+     * Called from {@code __jdfc_getAndReset} of instrumented classes and by the registry itself. Clears only the
+     * probes that were read as hit, so a concurrent hit is either part of the copy or stays in the array. The
+     * touched flag is neither copied nor cleared.
+     *
+     * @param data probe array of a class or {@code null}
+     * @return the hits since the previous call or {@code null}
+     */
+    public static boolean[] copyAndClear(final boolean[] data) {
+        if (data == null) {
+            return null;
+        }
+        boolean[] copy = new boolean[data.length - 1];
+        for (int i = 0; i < copy.length; i++) {
+            if (data[i]) {
+                copy[i] = true;
+                data[i] = false;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Like {@link #copyAndClear(boolean[])} for hit counters. Subtracts the copied counts instead of setting them to
+     * zero. Counts are as precise as the unsynchronized increments of the probes.
+     */
+    public static long[] copyAndClear(final long[] data) {
+        if (data == null) {
+            return null;
+        }
+        long[] copy = new long[data.length - 1];
+        for (int i = 0; i < copy.length; i++) {
+            long count = data[i];
+            if (count != 0) {
+                copy[i] = count;
+                data[i] -= count;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Takes the hits of all classes touched since the previous snapshot and merges them into the accumulated
+     * coverage. The cost is proportional to the number of touched classes.
+     * <p>
+     * Hits of a method that was entered before the previous snapshot and is still running are only taken once its
+     * class is touched again, or by {@link #collect(Set, Map, Set)}.
+     *
+     * @return hits since the previous snapshot by class data id of all classes with at least one hit
+     */
+    public static Map<String, boolean[]> snapshot() {
+        Map<String, boolean[]> result = new HashMap<>();
+        Iterator<ClassProbes> it = touched.iterator();
+        while (it.hasNext()) {
+            ClassProbes probes = it.next();
+            // Remove and reset first: a class that is entered from now on is part of the next snapshot
+            it.remove();
+            if (probes.countData != null) {
+                probes.countData[probes.covered.length] = 0;
+            } else {
+                probes.data[probes.covered.length] = false;
+            }
+            boolean[] hits = takeHits(probes);
+            if (hits != null) {
+                result.put(probes.classId, hits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes the hits of all registered classes, merges them into the accumulated coverage and adds the
+     * ids of all program variables whose probe was hit to {@code coveredPVarIds}. Accumulated hit counts of
+     * {@link instr.ProbeMode#COUNT} classes are put into {@code hitCounts}, covered def-use pairs of
+     * {@link instr.ProbeMode#PAIR} classes into {@code coveredPairIds}.
+     *
+     * @param coveredPVarIds target set of covered program variable ids
+     * @param hitCounts target map of hit counts by program variable id
+     * @param coveredPairIds target set of covered def-use pair ids
+     */
+    public static void collect(final Set<String> coveredPVarIds,
+                               final Map<String, Long> hitCounts,
+                               final Set<String> coveredPairIds) {
+        for (ClassProbes probes : classes.values()) {
+            takeHits(probes);
+            ClassData cData = ProjectData.findClassData(UUID.fromString(probes.classId));
+            if (cData == null || cData.getProbeIds() == null) {
+                continue;
+            }
+            List<UUID> probeIds = cData.getProbeIds();
+            List<UUID> pairProbeIds = cData.getPairProbeIds();
+            synchronized (probes) {
+                for (int i = 0; i < probes.covered.length && i < probeIds.size(); i++) {
+                    if (probes.covered[i]) {
+                        coveredPVarIds.add(probeIds.get(i).toString());
+                    }
+                    if (probes.counts != null && probes.counts[i] > 0) {
+                        hitCounts.put(probeIds.get(i).toString(), probes.counts[i]);
+                    }
+                }
+                if (pairProbeIds != null) {
+                    int offset = probeIds.size();
+                    for (int i = offset; i < probes.covered.length && i - offset < pairProbeIds.size(); i++) {
+                        UUID pairId = pairProbeIds.get(i - offset);
+                        if (probes.covered[i] && pairId != null) {
+                            coveredPairIds.add(pairId.toString());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies and clears the probe array of the class and merges the copy into the accumulated data.
+     *
+     * @return the probes hit since the previous call or {@code null} if none was hit
+     */
+    private static boolean[] takeHits(ClassProbes probes) {
+        synchronized (probes) {
+            boolean[] hits;
+            if (probes.countData != null) {
+                long[] counts = copyAndClear(probes.countData);
+                hits = new boolean[counts.length];
+                if (probes.counts == null) {
+                    probes.counts = new long[probes.covered.length];
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    hits[i] = counts[i] > 0;
+                    probes.counts[i] += counts[i];
+                }
+            } else {
+                hits = copyAndClear(probes.data);
+            }
+            return merge(probes.covered, hits) ? hits : null;
+        }
+    }
+
+    /**
+     * @return true if any probe of {@code source} is hit
+     */
+    private static boolean merge(boolean[] target, boolean[] source) {
+        boolean hit = false;
+        for (int i = 0; i < target.length && i < source.length; i++) {
+            target[i] |= source[i];
+            hit |= source[i];
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,45 @@
+package data;
+
+import java.lang.invoke.*;
+
+/**
+ * Runtime switch of probes instrumented with {@link ProjectData#isSwitchableProbes()}. Every probe is guarded by
+ * an {@code invokedynamic} instruction bound to a {@link MutableCallSite} with a constant target. The JIT folds the
+ * constant, so a disabled probe is dead code until the switch is flipped, which deoptimizes the dependent code.
+ * Classes with a class file version below 51 cannot use {@code invokedynamic} and read {@link #enabled} instead.
+ */
+public class ProbeSwitch {
+
+    private static final MutableCallSite SWITCH =
+            new MutableCallSite(MethodHandles.constant(boolean.class, true));
+
+    private static final MethodHandle INVOKER = SWITCH.dynamicInvoker();
+
+    /**
+     * Read by probes of classes that cannot use {@code invokedynamic}. Only written by {@link #setEnabled(boolean)}.
+     */
+    public static volatile boolean enabled = true;
+
+    private ProbeSwitch() {
+    }
+
+    /**
+     * Bootstrap method of the {@code invokedynamic} guard of every probe.
+     */
+    public static CallSite bootstrap(final MethodHandles.Lookup lookup, final String name, final MethodType type) {
+        return new ConstantCallSite(INVOKER);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void setEnabled(final boolean value) {
+        if (enabled == value) {
+            return;
+        }
+        enabled = value;
+        SWITCH.setTarget(MethodHandles.constant(boolean.class, value));
+        MutableCallSite.syncAll(new MutableCallSite[]{SWITCH});
+    }
+}
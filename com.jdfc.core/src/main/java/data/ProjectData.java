@@ -1,16 +1,21 @@
 package data;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import graphs.cfg.CFG;
 import graphs.cfg.LocalVariable;
 import instr.ClassMetaData;
+import instr.ProbeMode;
 import lombok.Data;
 import utils.Deserializer;
 import utils.JDFCUtils;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A storage singleton for all class data required for the analysis. A tree structure of {@code ExecutionDataNode}
@@ -44,9 +49,65 @@ public class ProjectData implements Serializable {
     private Map<UUID, ClassData> classDataMap;
     private Map<UUID, MethodData> methodDataMap;
     private Map<UUID, PairData> defUsePairMap;
+
+    /**
+     * Ids of the pairs in {@link #defUsePairMap} by definition and use id, see {@link #putDefUsePair(PairData)}.
+     * Rebuilt whenever {@link #defUsePairMap} is replaced, i.e. on construction, deserialization and
+     * {@link #fetchDataFrom(ProjectData)}.
+     */
+    private transient Map<List<UUID>, UUID> defUsePairIndex;
+
+    /**
+     * Definition ids of the pairs in {@link #defUsePairMap} by use id. Built together with {@link #defUsePairIndex}.
+     */
+    private transient SetMultimap<UUID, UUID> useDefinitionsIndex;
     private Map<UUID, ProgramVariable> programVariableMap;
     private Set<String> coveredPVarIds;
+
+    /**
+     * Hit counts by program variable id. Only filled for {@link ProbeMode#COUNT}.
+     */
+    private Map<String, Long> hitCounts;
+
+    /**
+     * Ids of def-use pairs observed at runtime. Only filled for {@link ProbeMode#PAIR}.
+     */
+    private Set<String> coveredPairIds;
     private boolean isInterProcedural;
+    private ProbeMode probeMode = ProbeMode.STRING;
+    private boolean perThreadBuffers = Boolean.getBoolean("jdfc.perThreadBuffers");
+
+    /**
+     * Leave out probes that are implied by other probes, see {@link instr.ProbeMinimizer}.
+     */
+    private boolean minimizeProbes = false;
+
+    /**
+     * Guard probes within loops with a local flag, so that they are executed once per method invocation.
+     */
+    private boolean loopFlags = false;
+
+    /**
+     * Guard probes with {@link ProbeSwitch}, so that coverage can be switched on and off at runtime.
+     */
+    private boolean switchableProbes = false;
+
+    /**
+     * Keep the stack map frames of the original class instead of recomputing them, see
+     * {@link instr.Instrumenter#isFramePreserving()}.
+     */
+    private boolean preserveFrames = false;
+
+    /**
+     * Take line ranges and nested types from the class file instead of parsing the source. The source is only
+     * parsed when the report is created, see {@link data.visitors.SourceDeclarationResolver}.
+     */
+    private boolean bytecodeOnly = false;
+
+    /**
+     * Serve unchanged classes from and store instrumented classes in the {@link instr.InstrumentationCache}.
+     */
+    private boolean cacheEnabled = false;
 
     /**
      * The keys are variable ids of invoked routines.
@@ -72,26 +133,33 @@ public class ProjectData implements Serializable {
         this.testedClassList = new HashSet<>();
         this.untestedClassList = new HashSet<>();
 
-        this.packageDataMap = new HashMap<>();
-        this.classDataMap = new HashMap<>();
-        this.classMetaDataMap = new HashMap<>();
-        this.methodDataMap = new HashMap<>();
-        this.defUsePairMap = new HashMap<>();
-        this.programVariableMap = new HashMap<>();
-        this.coveredPVarIds = new HashSet<>();
-        this.matchesMap = ArrayListMultimap.create();
+        // Classes may be instrumented in parallel
+        this.packageDataMap = new ConcurrentHashMap<>();
+        this.classDataMap = new ConcurrentHashMap<>();
+        this.classMetaDataMap = new ConcurrentHashMap<>();
+        this.methodDataMap = new ConcurrentHashMap<>();
+        this.defUsePairMap = new ConcurrentHashMap<>();
+        this.programVariableMap = new ConcurrentHashMap<>();
+        this.coveredPVarIds = ConcurrentHashMap.newKeySet();
+        this.hitCounts = new ConcurrentHashMap<>();
+        this.coveredPairIds = ConcurrentHashMap.newKeySet();
+        this.matchesMap = Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+        this.buildDefUsePairIndex();
         loadOld();
 
         if (initHook) {
             Runtime.getRuntime().addShutdownHook(new Thread() {
                 @Override
                 public void run() {
+                    ProjectData.getInstance().collectCoverage();
                     createPath(JDFCUtils.getJDFCSerFileAbs());
                     try (FileOutputStream fileOut = new FileOutputStream(JDFCUtils.getJDFCSerFileAbs());
                          ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
 
                         if (old != null) {
                             old.getCoveredPVarIds().addAll(ProjectData.getInstance().getCoveredPVarIds());
+                            old.mergeHitCounts(ProjectData.getInstance().getHitCounts());
+                            old.mergeCoveredPairIds(ProjectData.getInstance().getCoveredPairIds());
                             out.writeObject(old);
                         } else {
                             out.writeObject(ProjectData.getInstance());
@@ -105,6 +173,25 @@ public class ProjectData implements Serializable {
         }
     }
 
+    /**
+     * Looks up class data of the current run first and falls back to the data of a previous
+     * (offline) instrumentation run.
+     */
+    static ClassData findClassData(UUID id) {
+        ClassData cData = ProjectData.getInstance().getClassDataMap().get(id);
+        if (cData == null && old != null) {
+            cData = old.getClassDataMap().get(id);
+        }
+        return cData;
+    }
+
+    /**
+     * @return project data of a previous (offline) instrumentation run or {@code null}
+     */
+    public static ProjectData getOld() {
+        return old;
+    }
+
     public static void loadOld() {
         ProjectData.old = Deserializer.deserializeCoverageData(JDFCUtils.getJDFCSerFileAbs());
     }
@@ -128,15 +215,16 @@ public class ProjectData implements Serializable {
     }
 
     public static ProjectData getInstance() {
-        synchronized (lock) {
-            if(instance == null) {
-                String callerClassName = Thread.currentThread().getStackTrace()[2].getClassName();
-                String callerMethodName = Thread.currentThread().getStackTrace()[2].getMethodName();
-//                JDFCUtils.logThis(callerClassName +"::"+callerMethodName, "ProjectData");
-                instance = new ProjectData(true);
+        ProjectData result = instance;
+        if (result == null) {
+            synchronized (lock) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new ProjectData(true);
+                }
             }
         }
-        return instance;
+        return result;
     }
 
     public void fetchDataFrom(ProjectData source) {
@@ -162,9 +250,21 @@ public class ProjectData implements Serializable {
         this.classDataMap = source.classDataMap;
         this.methodDataMap = source.methodDataMap;
         this.defUsePairMap = source.defUsePairMap;
+        this.defUsePairIndex = source.defUsePairIndex;
+        this.useDefinitionsIndex = source.useDefinitionsIndex;
         this.programVariableMap = source.programVariableMap;
         this.coveredPVarIds = source.coveredPVarIds;
+        this.hitCounts = source.hitCounts;
+        this.coveredPairIds = source.coveredPairIds;
         this.isInterProcedural = source.isInterProcedural;
+        this.probeMode = source.probeMode;
+        this.perThreadBuffers = source.perThreadBuffers;
+        this.minimizeProbes = source.minimizeProbes;
+        this.loopFlags = source.loopFlags;
+        this.switchableProbes = source.switchableProbes;
+        this.preserveFrames = source.preserveFrames;
+        this.bytecodeOnly = source.bytecodeOnly;
+        this.cacheEnabled = source.cacheEnabled;
 
         this.matchesMap = source.matchesMap;
         this.testedClassList = source.testedClassList;
@@ -191,8 +291,118 @@ public class ProjectData implements Serializable {
 
     }
 
+    /**
+     * Registers an analysed class, its meta data and its package once its instrumentation succeeded. Methods,
+     * program variables and pairs of the class are written into the global maps during the analysis and are not
+     * covered by this call, so they stay in the maps if the instrumentation of the class fails.
+     */
+    public void publishClass(final ClassMetaData classMetaData, final ClassData classData) {
+        this.classDataMap.put(classData.getId(), classData);
+        this.classMetaDataMap.put(classMetaData.getFqn(), classMetaData);
+        this.packageDataMap.computeIfAbsent(classMetaData.getClassFilePackageRel(), PackageData::new)
+                .getClassDataIds().add(classData.getId());
+    }
+
+    /**
+     * Records a covered program variable. Called by probes of {@link ProbeMode#STRING} instrumented code, so this
+     * must not block: after the first hit of a variable only a lock-free {@code contains} is performed.
+     * <p>
+     * A bitset keyed by variable ordinal would need the same hash lookup to map the id to its ordinal and an
+     * additional read of the bitset, which halves the throughput of repeated hits in {@code TrackVarBenchmark}.
+     */
     public static void trackVar(final String pId) {
-        ProjectData.getInstance().getCoveredPVarIds().add(pId);
+        final ProjectData data = ProjectData.getInstance();
+        if (data.perThreadBuffers) {
+            ThreadProbeBuffer.record(pId);
+            return;
+        }
+        final Set<String> covered = data.coveredPVarIds;
+        if (!covered.contains(pId)) {
+            covered.add(pId);
+        }
+    }
+
+    /**
+     * Merges coverage that is recorded outside of {@link #coveredPVarIds}, i.e. per-thread buffers and probe arrays,
+     * into {@link #coveredPVarIds}. Called by the shutdown hook and may be called explicitly to dump coverage early.
+     */
+    public void collectCoverage() {
+        ThreadProbeBuffer.drainTo(this.coveredPVarIds);
+        ProbeRegistry.collect(this.coveredPVarIds, this.hitCounts, this.coveredPairIds);
+    }
+
+    /**
+     * Stores the pair unless a pair with the same definition and use is already stored.
+     *
+     * @return true if the pair was stored
+     */
+    public boolean putDefUsePair(PairData pair) {
+        if (this.defUsePairIndex.putIfAbsent(Arrays.asList(pair.getDefId(), pair.getUseId()), pair.getId()) != null) {
+            return false;
+        }
+        this.defUsePairMap.put(pair.getId(), pair);
+        this.useDefinitionsIndex.put(pair.getUseId(), pair.getDefId());
+        return true;
+    }
+
+    /**
+     * @return ids of all definitions that form a def-use pair with the use
+     */
+    public Set<UUID> getDefinitionIds(UUID useId) {
+        synchronized (this.useDefinitionsIndex) {
+            return new HashSet<>(this.useDefinitionsIndex.get(useId));
+        }
+    }
+
+    private void buildDefUsePairIndex() {
+        Map<List<UUID>, UUID> index = new ConcurrentHashMap<>();
+        SetMultimap<UUID, UUID> definitions = Multimaps.synchronizedSetMultimap(HashMultimap.create());
+        for (PairData pair : this.defUsePairMap.values()) {
+            index.putIfAbsent(Arrays.asList(pair.getDefId(), pair.getUseId()), pair.getId());
+            definitions.put(pair.getUseId(), pair.getDefId());
+        }
+        this.defUsePairIndex = index;
+        this.useDefinitionsIndex = definitions;
+    }
+
+    /**
+     * Transient indexes are not part of the serialized data.
+     */
+    private Object readResolve() {
+        this.buildDefUsePairIndex();
+        return this;
+    }
+
+    private void mergeCoveredPairIds(Set<String> pairIds) {
+        if (this.coveredPairIds == null) {
+            this.coveredPairIds = new HashSet<>();
+        }
+        this.coveredPairIds.addAll(pairIds);
+    }
+
+    /**
+     * @return true if the def-use pair was observed at runtime by a {@link ProbeMode#PAIR} probe
+     */
+    public boolean isPairCovered(UUID pairId) {
+        return coveredPairIds != null && coveredPairIds.contains(pairId.toString());
+    }
+
+    private void mergeHitCounts(Map<String, Long> counts) {
+        if (this.hitCounts == null) {
+            this.hitCounts = new HashMap<>();
+        }
+        counts.forEach((id, count) -> this.hitCounts.merge(id, count, Long::sum));
+    }
+
+    /**
+     * @return hit count of the program variable, 0 if it was not hit or counting was disabled
+     */
+    public long getHitCount(UUID pVarId) {
+        if (hitCounts == null) {
+            return 0;
+        }
+        Long count = hitCounts.get(pVarId.toString());
+        return count == null ? 0 : count;
     }
 
     public static void trackNewObject(final Object obj,
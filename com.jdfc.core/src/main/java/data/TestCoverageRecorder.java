@@ -0,0 +1,168 @@
+package data;
+
+import utils.Constants;
+import utils.JDFCUtils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Attributes probe hits to single tests. Test framework listeners call {@link #testStarted()} and
+ * {@link #testFinished(String)} around every test method. Both take a {@link ProbeRegistry#snapshot()}, so their
+ * cost only depends on the classes touched by the test. Requires an array based {@link instr.ProbeMode}. Tests must not run
+ * concurrently within the same JVM, otherwise hits are attributed to whichever test finishes first.
+ * <p>
+ * Every finished test appends one record to the file of its JVM, see {@link JDFCUtils#getJDFCTestCoverageFileAbs()},
+ * so forked test JVMs never write to the same file. {@link #readAll(File)} merges the files of all JVMs:
+ * <pre>
+ * UTF     test id
+ * int     number of classes
+ * per class:
+ *   long  most significant bits of the class data id
+ *   long  least significant bits of the class data id
+ *   int   number of probes
+ *   int   number of words
+ *   long* probe bitmap, bit i of word w is probe 64 * w + i
+ * </pre>
+ */
+public class TestCoverageRecorder {
+
+    private static volatile boolean enabled = false;
+
+    private static DataOutputStream out;
+
+    private TestCoverageRecorder() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        TestCoverageRecorder.enabled = enabled;
+    }
+
+    /**
+     * Discards the hits recorded between two tests, e.g. by class initialization or fixture setup. They are still
+     * part of the accumulated coverage.
+     */
+    public static synchronized void testStarted() {
+        if (enabled) {
+            ProbeRegistry.snapshot();
+        }
+    }
+
+    public static synchronized void testFinished(String testId) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, boolean[]> hits = ProbeRegistry.snapshot();
+        try {
+            write(testId, hits);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static synchronized void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void write(String testId, Map<String, boolean[]> hits) throws IOException {
+        if (out == null) {
+            File file = new File(JDFCUtils.getJDFCTestCoverageFileAbs());
+            if (!file.getParentFile().exists()) {
+                file.getParentFile().mkdirs();
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            Runtime.getRuntime().addShutdownHook(new Thread(TestCoverageRecorder::flush));
+        }
+        out.writeUTF(testId);
+        out.writeInt(hits.size());
+        for (Map.Entry<String, boolean[]> entry : hits.entrySet()) {
+            UUID classId = UUID.fromString(entry.getKey());
+            long[] words = toWords(entry.getValue());
+            out.writeLong(classId.getMostSignificantBits());
+            out.writeLong(classId.getLeastSignificantBits());
+            out.writeInt(entry.getValue().length);
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    private static long[] toWords(boolean[] hits) {
+        int last = -1;
+        long[] words = new long[(hits.length + 63) >>> 6];
+        for (int i = 0; i < hits.length; i++) {
+            if (hits[i]) {
+                words[i >>> 6] |= 1L << i;
+                last = i >>> 6;
+            }
+        }
+        // Trailing zero words are not written
+        return Arrays.copyOf(words, last + 1);
+    }
+
+    /**
+     * Reads the files written by all JVMs into the given directory.
+     *
+     * @param dir the directory of the per-test coverage files
+     * @return covered probes per class data id per test id
+     */
+    public static Map<String, Map<UUID, BitSet>> readAll(File dir) throws IOException {
+        Map<String, Map<UUID, BitSet>> result = new LinkedHashMap<>();
+        File[] files = dir.listFiles((d, name) ->
+                name.startsWith(Constants.JDFC_TEST_COVERAGE_FILE_PREFIX) && name.endsWith(".bin"));
+        if (files == null) {
+            return result;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            read(file).forEach((testId, classes) -> {
+                Map<UUID, BitSet> merged = result.computeIfAbsent(testId, k -> new HashMap<>());
+                classes.forEach((classId, bits) -> merged.computeIfAbsent(classId, k -> new BitSet()).or(bits));
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Reads a file written by this class.
+     *
+     * @param file the per-test coverage file
+     * @return covered probes per class data id per test id
+     */
+    public static Map<String, Map<UUID, BitSet>> read(File file) throws IOException {
+        Map<String, Map<UUID, BitSet>> result = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                String testId;
+                try {
+                    testId = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                Map<UUID, BitSet> classes = result.computeIfAbsent(testId, k -> new HashMap<>());
+                int classCount = in.readInt();
+                for (int i = 0; i < classCount; i++) {
+                    UUID classId = new UUID(in.readLong(), in.readLong());
+                    in.readInt();
+                    long[] words = new long[in.readInt()];
+                    for (int w = 0; w < words.length; w++) {
+                        words[w] = in.readLong();
+                    }
+                    classes.computeIfAbsent(classId, k -> new BitSet()).or(BitSet.valueOf(words));
+                }
+            }
+        }
+        return result;
+    }
+}
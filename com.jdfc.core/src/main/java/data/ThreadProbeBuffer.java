@@ -0,0 +1,119 @@
+package data;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Per-thread recording buffer for covered program variables. Every variable id gets a global ordinal on its first
+ * hit, and a thread records its hits in a private bitset indexed by ordinal. The owning thread checks its bitset
+ * without any synchronization, and the ordinal lookup only reads the shared map, so repeated hits of a variable never
+ * write to memory shared with other cores. Only the first hit of a variable per thread is handed over to the
+ * {@code pending} bitset, whose monitor is contended solely while coverage is collected.
+ * <p>
+ * Buffers are registered globally and outlive their threads, so coverage of terminated threads or of threads that
+ * are reused by a pool is not lost.
+ */
+public class ThreadProbeBuffer {
+
+    private static final ConcurrentLinkedQueue<ThreadProbeBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private static final ThreadLocal<ThreadProbeBuffer> current = ThreadLocal.withInitial(() -> {
+        ThreadProbeBuffer buffer = new ThreadProbeBuffer(Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    private static final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+    /**
+     * Variable ids by ordinal. Guards the assignment of new ordinals.
+     */
+    private static final List<String> ids = new ArrayList<>();
+
+    private final WeakReference<Thread> owner;
+
+    /**
+     * Only accessed by the owning thread
+     */
+    private long[] seen = new long[16];
+
+    /**
+     * Guarded by the monitor of the buffer
+     */
+    private long[] pending = new long[16];
+
+    private ThreadProbeBuffer(Thread owner) {
+        this.owner = new WeakReference<>(owner);
+    }
+
+    public static void record(final String pId) {
+        ThreadProbeBuffer buffer = current.get();
+        int ordinal = ordinal(pId);
+        int word = ordinal >>> 6;
+        long mask = 1L << ordinal;
+        long[] seen = buffer.seen;
+        if (word >= seen.length) {
+            seen = buffer.seen = Arrays.copyOf(seen, Math.max(word + 1, 2 * seen.length));
+        }
+        if ((seen[word] & mask) == 0) {
+            seen[word] |= mask;
+            synchronized (buffer) {
+                if (word >= buffer.pending.length) {
+                    buffer.pending = Arrays.copyOf(buffer.pending, seen.length);
+                }
+                buffer.pending[word] |= mask;
+            }
+        }
+    }
+
+    private static int ordinal(final String pId) {
+        Integer ordinal = ordinals.get(pId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (ids) {
+            ordinal = ordinals.get(pId);
+            if (ordinal == null) {
+                ordinal = ids.size();
+                ids.add(pId);
+                ordinals.put(pId, ordinal);
+            }
+            return ordinal;
+        }
+    }
+
+    /**
+     * Moves all pending variable ids of all threads into {@code coveredPVarIds}. Buffers of terminated threads are
+     * dropped once they are drained.
+     *
+     * @param coveredPVarIds target set of covered program variable ids
+     */
+    public static void drainTo(final Set<String> coveredPVarIds) {
+        Iterator<ThreadProbeBuffer> it = buffers.iterator();
+        while (it.hasNext()) {
+            ThreadProbeBuffer buffer = it.next();
+            // Check termination before draining, so that nothing recorded by the thread can slip in afterwards
+            Thread thread = buffer.owner.get();
+            boolean isTerminated = thread == null || !thread.isAlive();
+            long[] drained;
+            synchronized (buffer) {
+                drained = buffer.pending;
+                buffer.pending = new long[drained.length];
+            }
+            synchronized (ids) {
+                for (int word = 0; word < drained.length; word++) {
+                    long bits = drained[word];
+                    while (bits != 0) {
+                        coveredPVarIds.add(ids.get((word << 6) + Long.numberOfTrailingZeros(bits)));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            if (isTerminated) {
+                it.remove();
+            }
+        }
+    }
+}
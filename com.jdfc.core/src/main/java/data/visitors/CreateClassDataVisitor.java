@@ -1,7 +1,6 @@
 package data.visitors;
 
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import data.ClassData;
 import data.MethodData;
@@ -10,17 +9,20 @@ import instr.ClassMetaData;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InnerClassNode;
 import org.objectweb.asm.tree.MethodNode;
 import utils.ASMHelper;
 import utils.JDFCUtils;
 import utils.JavaParserHelper;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 
+import static org.objectweb.asm.Opcodes.ACC_ANNOTATION;
+import static org.objectweb.asm.Opcodes.ACC_ENUM;
 import static org.objectweb.asm.Opcodes.ASM5;
 
 public class CreateClassDataVisitor extends ClassVisitor {
@@ -38,16 +40,22 @@ public class CreateClassDataVisitor extends ClassVisitor {
         this.asmHelper = new ASMHelper();
 
         Map<String, String> nestedTypeMap;
-        try {
-            JavaParserHelper javaParserHelper = new JavaParserHelper();
-            CompilationUnit compilationUnit = javaParserHelper.parse(this.classMetaData.getSourceFile());
-            this.classDeclaration = this.extractClassDeclaration(compilationUnit);
-            nestedTypeMap = this.extractNestedTypes(compilationUnit);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("ERROR: Missing source file for " + this.classMetaData.getClassFileAbs());
+        File sourceFile = this.classMetaData.getSourceFile();
+        if (ProjectData.getInstance().isBytecodeOnly() || sourceFile == null || !sourceFile.exists()) {
+            // Line ranges are taken from the line number table and refined from the source at report time
+            this.classDeclaration = null;
+            nestedTypeMap = this.extractNestedTypes(classNode);
+        } else {
+            try {
+                CompilationUnit compilationUnit = JavaParserHelper.getInstance().parse(sourceFile);
+                this.classDeclaration = SourceDeclarationResolver.findClassDeclaration(compilationUnit, classMetaData);
+                nestedTypeMap = this.extractNestedTypes(compilationUnit);
+            } catch (FileNotFoundException e) {
+                throw new RuntimeException("ERROR: Missing source file for " + this.classMetaData.getClassFileAbs());
+            }
         }
 
-        UUID id = UUID.randomUUID();
+        UUID id = JDFCUtils.createId("class", classMetaData.getFqn());
         classMetaData.setClassDataId(id);
         this.classData = new ClassData(id, classMetaData, nestedTypeMap);
     }
@@ -59,7 +67,7 @@ public class CreateClassDataVisitor extends ClassVisitor {
         String internalMethodName = this.asmHelper.computeInternalMethodName(name, descriptor, signature, exceptions);
         if (methodNode != null && this.asmHelper.isInstrumentationRequired(methodNode, internalMethodName)) {
             // Create MethodData
-            UUID id = UUID.randomUUID();
+            UUID id = JDFCUtils.createId(this.classData.getId(), "method", internalMethodName);
             MethodData methodData = new MethodData(id, this.classMetaData.getFqn(), access, internalMethodName);
 
             // Gather meta data for method and save
@@ -71,53 +79,41 @@ public class CreateClassDataVisitor extends ClassVisitor {
         return mv;
     }
 
-    @Override
-    public void visitEnd() {
-        ProjectData.getInstance().getClassDataMap().put(this.classData.getId(), this.classData);
-        ProjectData.getInstance().getPackageDataMap().get(this.classMetaData.getClassFilePackageRel()).getClassDataIds().add(this.classData.getId());
-        super.visitEnd();
+    public ClassData getClassData() {
+        return classData;
     }
 
     // --- Private Methods ---------------------------------------------------------------------------------------------
-    private ClassOrInterfaceDeclaration extractClassDeclaration(CompilationUnit compilationUnit) {
-        Optional<ClassOrInterfaceDeclaration> ciOptional;
-        if(this.classMetaData.isInnerClass()) {
-            ciOptional = compilationUnit.getClassByName(this.classMetaData.getOuterName());
-            if (ciOptional.isPresent()) {
-                ClassOrInterfaceDeclaration ci = ciOptional.get();
-                for (BodyDeclaration<?> body : ci.getMembers()) {
-                    if (body.isClassOrInterfaceDeclaration()) {
-                        ClassOrInterfaceDeclaration ciInner = (ClassOrInterfaceDeclaration) body;
-                        if(ciInner.getName().asString().equals(this.classMetaData.getName())) {
-                            return ciInner;
-                        }
-                    }
-                }
-            }
-            throw new IllegalArgumentException(String.format("Class \"%s\" is not present in file \"%s\".",
-                    classMetaData, classMetaData.getClassFileRel()));
-        } else {
-            ciOptional = compilationUnit.getClassByName(this.classMetaData.getName());
-            if (ciOptional.isPresent()) {
-                return ciOptional.get();
-            } else {
-                throw new IllegalArgumentException(String.format("Class \"%s\" is not present in file \"%s\".",
-                        classMetaData, classMetaData.getClassFileRel()));
-            }
-        }
-    }
-
     private Map<String, String> extractNestedTypes(CompilationUnit srcFileAst) {
         Map<String, String> result = new HashMap<>();
         srcFileAst.findAll(ClassOrInterfaceDeclaration.class)
                 .stream()
                 .filter(ClassOrInterfaceDeclaration::isNestedType)
                 .forEach(c -> {
-                    String cFqn = c.resolve().getQualifiedName();
+                    String cFqn = JavaParserHelper.getInstance().resolve(() -> c.resolve().getQualifiedName());
                     String jvmInternal = JDFCUtils.innerClassFqnToJVMInternal(cFqn);
                     result.put(c.getName().getIdentifier(), jvmInternal);
                 });
         return result;
     }
 
+    /**
+     * Nested member classes and interfaces of the top level class, taken from the InnerClasses attribute. In
+     * contrast to the source only the nested types known to this class file are found.
+     */
+    private Map<String, String> extractNestedTypes(ClassNode classNode) {
+        Map<String, String> result = new HashMap<>();
+        String topLevelName = classNode.name.contains("$")
+                ? classNode.name.substring(0, classNode.name.indexOf('$'))
+                : classNode.name;
+        for (InnerClassNode innerClassNode : classNode.innerClasses) {
+            if (innerClassNode.innerName != null
+                    && innerClassNode.outerName != null
+                    && innerClassNode.name.startsWith(topLevelName + "$")
+                    && (innerClassNode.access & (ACC_ENUM | ACC_ANNOTATION)) == 0) {
+                result.put(innerClassNode.innerName, innerClassNode.name);
+            }
+        }
+        return result;
+    }
 }
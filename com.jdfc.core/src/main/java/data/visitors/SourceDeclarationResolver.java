@@ -0,0 +1,131 @@
+package data.visitors;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import data.ClassData;
+import data.MethodData;
+import instr.ClassMetaData;
+import lombok.extern.slf4j.Slf4j;
+import utils.JavaParserHelper;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Matches methods to their declarations in the source file. A method belongs to the declaration that encloses the
+ * lines of its bytecode, which are initially taken from the line number table. Used during instrumentation and, in
+ * bytecode-only mode, when the report is created.
+ */
+@Slf4j
+public class SourceDeclarationResolver {
+
+    private SourceDeclarationResolver() {
+    }
+
+    public static ClassOrInterfaceDeclaration findClassDeclaration(CompilationUnit compilationUnit,
+                                                                   ClassMetaData classMetaData) {
+        Optional<ClassOrInterfaceDeclaration> ciOptional;
+        if (classMetaData.isInnerClass()) {
+            ciOptional = compilationUnit.getClassByName(classMetaData.getOuterName());
+            if (ciOptional.isPresent()) {
+                ClassOrInterfaceDeclaration ci = ciOptional.get();
+                for (BodyDeclaration<?> body : ci.getMembers()) {
+                    if (body.isClassOrInterfaceDeclaration()) {
+                        ClassOrInterfaceDeclaration ciInner = (ClassOrInterfaceDeclaration) body;
+                        if (ciInner.getName().asString().equals(classMetaData.getName())) {
+                            return ciInner;
+                        }
+                    }
+                }
+            }
+        } else {
+            ciOptional = compilationUnit.getClassByName(classMetaData.getName());
+            if (ciOptional.isPresent()) {
+                return ciOptional.get();
+            }
+        }
+        throw new IllegalArgumentException(String.format("Class \"%s\" is not present in file \"%s\".",
+                classMetaData, classMetaData.getClassFileRel()));
+    }
+
+    /**
+     * Sets begin line, end line and declaration of the method to those of its source declaration.
+     *
+     * @return false if the class declares no method that encloses the lines of the method
+     */
+    public static boolean resolve(ClassOrInterfaceDeclaration classDeclaration, MethodData methodData) {
+        List<CallableDeclaration<?>> declarations = new ArrayList<>(classDeclaration.getMethods());
+        declarations.addAll(classDeclaration.getConstructors());
+        for (CallableDeclaration<?> declaration : declarations) {
+            int srcBeginLine = extractBegin(declaration);
+            int srcEndLine = extractEnd(declaration);
+            if (srcBeginLine <= methodData.getBeginLine() && methodData.getEndLine() <= srcEndLine) {
+                methodData.setBeginLine(srcBeginLine);
+                methodData.setEndLine(srcEndLine);
+                methodData.setDeclarationStr(declaration.getDeclarationAsString());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the line ranges of all methods of a class analysed in bytecode-only mode with those of the source
+     * declarations. Classes without source file keep their line ranges.
+     */
+    public static void resolve(ClassData classData) {
+        File sourceFile = classData.getClassMetaData().getSourceFile();
+        if (sourceFile == null || !sourceFile.exists()) {
+            return;
+        }
+        ClassOrInterfaceDeclaration classDeclaration;
+        try {
+            CompilationUnit compilationUnit = JavaParserHelper.getInstance().parse(sourceFile);
+            classDeclaration = findClassDeclaration(compilationUnit, classData.getClassMetaData());
+        } catch (FileNotFoundException | ParseProblemException | IllegalArgumentException e) {
+            log.debug(String.format("Source of %s could not be resolved: %s",
+                    classData.getClassMetaData().getClassFileRel(), e.getMessage()));
+            return;
+        }
+
+        classData.getLineToMethodIdMap().clear();
+        for (MethodData methodData : classData.getMethodDataFromStore().values()) {
+            boolean isDeclared = resolve(classDeclaration, methodData);
+            for (int i = methodData.getBeginLine(); i <= methodData.getEndLine(); i++) {
+                classData.getLineToMethodIdMap().put(i, methodData.getId());
+            }
+            if (!isDeclared && methodData.getName().equals("<init>")) {
+                // Default constructor
+                methodData.setBeginLine(Integer.MIN_VALUE);
+                methodData.setEndLine(Integer.MIN_VALUE);
+                classData.getLineToMethodIdMap().put(Integer.MIN_VALUE, methodData.getId());
+            }
+        }
+        classData.invalidateMethodIndex();
+    }
+
+    private static int extractBegin(CallableDeclaration<?> declaration) {
+        Optional<Position> posOpt = declaration.getBegin();
+        if (posOpt.isPresent()) {
+            return posOpt.get().line;
+        } else {
+            throw new IllegalArgumentException("Method begin is undefined.");
+        }
+    }
+
+    private static int extractEnd(CallableDeclaration<?> declaration) {
+        Optional<Position> posOpt = declaration.getEnd();
+        if (posOpt.isPresent()) {
+            return posOpt.get().line;
+        } else {
+            throw new IllegalArgumentException("Method end is undefined.");
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package graphs.cfg;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
-import data.ProgramVariable;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import graphs.cfg.nodes.CFGEntryNode;
 import graphs.cfg.nodes.CFGNode;
 import lombok.Data;
@@ -10,10 +11,7 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import utils.JDFCUtils;
 
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.NavigableMap;
-import java.util.Set;
+import java.util.*;
 
 /**
  * A implementation of a {@link CFG}.
@@ -43,23 +41,140 @@ public class CFG {
     }
 
     /**
-     * {@inheritDoc}
+     * Computes reach and reachOut of all nodes, see {@link ReachingDefinitions}.
      */
     public void calculateReachingDefinitions() {
-        LinkedList<CFGNode> workList = new LinkedList<>();
         for (Map.Entry<Integer, CFGNode> node : nodes.entrySet()) {
             node.getValue().resetReachOut();
-            workList.add(node.getValue());
         }
+        ReachingDefinitions.compute(nodes.values());
+    }
+
+    /**
+     * Computes the dominator tree. Besides the entry node every node without predecessors is a root.
+     */
+    public DominatorTree calculateDominators() {
+        SetMultimap<Integer, Integer> successors = HashMultimap.create(edges);
+        SetMultimap<Integer, Integer> predecessors = Multimaps.invertFrom(successors, HashMultimap.create());
+        Set<Integer> roots = new LinkedHashSet<>();
+        roots.add(0);
+        for (Integer node : nodes.keySet()) {
+            if (!predecessors.containsKey(node)) {
+                roots.add(node);
+            }
+        }
+        return new DominatorTree(roots, successors, predecessors);
+    }
+
+    /**
+     * Computes the post dominator tree. Besides the exit node every node without successors is a root, e.g. a node
+     * that throws an exception which is not caught within the method.
+     */
+    public DominatorTree calculatePostDominators() {
+        SetMultimap<Integer, Integer> successors = HashMultimap.create(edges);
+        SetMultimap<Integer, Integer> predecessors = Multimaps.invertFrom(successors, HashMultimap.create());
+        Set<Integer> roots = new LinkedHashSet<>();
+        roots.add(nodes.lastKey());
+        for (Integer node : nodes.keySet()) {
+            if (!successors.containsKey(node)) {
+                roots.add(node);
+            }
+        }
+        return new DominatorTree(roots, predecessors, successors);
+    }
+
+    /**
+     * Partitions the nodes into basic blocks. A node starts a new block unless it has exactly one predecessor
+     * which has exactly one successor. Exception edges are part of the CFG, so instructions covered by an exception
+     * handler end their block.
+     *
+     * @return index of the first node of the containing basic block by node index
+     */
+    public Map<Integer, Integer> calculateBasicBlocks() {
+        SetMultimap<Integer, Integer> successors = HashMultimap.create(edges);
+        SetMultimap<Integer, Integer> predecessors = Multimaps.invertFrom(successors, HashMultimap.create());
+        Map<Integer, Integer> blocks = new HashMap<>();
+        for (Integer node : reversePostOrder(Collections.singleton(0), successors)) {
+            Set<Integer> pred = predecessors.get(node);
+            if (pred.size() == 1) {
+                Integer prev = pred.iterator().next();
+                if (!prev.equals(node) && successors.get(prev).size() == 1 && blocks.containsKey(prev)) {
+                    blocks.put(node, blocks.get(prev));
+                    continue;
+                }
+            }
+            blocks.put(node, node);
+        }
+        for (Integer node : nodes.keySet()) {
+            blocks.putIfAbsent(node, node);
+        }
+        return blocks;
+    }
+
+    /**
+     * Finds the natural loops of the CFG. An edge is a back edge if its target dominates its source. The loop of a
+     * back edge consists of its target, the loop header, and all nodes that reach its source without passing the
+     * header.
+     *
+     * @return indices of all nodes that are part of a natural loop
+     */
+    public Set<Integer> calculateLoopNodes() {
+        DominatorTree dominators = calculateDominators();
+        SetMultimap<Integer, Integer> successors = HashMultimap.create(edges);
+        SetMultimap<Integer, Integer> predecessors = Multimaps.invertFrom(successors, HashMultimap.create());
+        Set<Integer> loopNodes = new HashSet<>();
+        for (Map.Entry<Integer, Integer> edge : successors.entries()) {
+            Integer source = edge.getKey();
+            Integer header = edge.getValue();
+            if (!dominators.dominates(header, source)) {
+                continue;
+            }
+            Set<Integer> body = new HashSet<>();
+            body.add(header);
+            Deque<Integer> workList = new ArrayDeque<>();
+            if (body.add(source)) {
+                workList.push(source);
+            }
+            while (!workList.isEmpty()) {
+                for (Integer pred : predecessors.get(workList.pop())) {
+                    if (body.add(pred)) {
+                        workList.push(pred);
+                    }
+                }
+            }
+            loopNodes.addAll(body);
+        }
+        return loopNodes;
+    }
 
-        while (!workList.isEmpty()) {
-            CFGNode node = workList.poll();
-            Set<ProgramVariable> oldValue = Sets.newLinkedHashSet(node.getReachOut());
-            node.update();
-            if (!node.getReachOut().equals(oldValue)) {
-                workList.addAll(node.getSucc());
+    /**
+     * @return all nodes reachable from {@code roots} in reverse post order
+     */
+    public static List<Integer> reversePostOrder(final Collection<Integer> roots,
+                                                 final Multimap<Integer, Integer> successors) {
+        List<Integer> order = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        Deque<Map.Entry<Integer, Iterator<Integer>>> stack = new ArrayDeque<>();
+        for (Integer root : roots) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            stack.push(new AbstractMap.SimpleEntry<>(root, successors.get(root).iterator()));
+            while (!stack.isEmpty()) {
+                Map.Entry<Integer, Iterator<Integer>> top = stack.peek();
+                if (top.getValue().hasNext()) {
+                    Integer next = top.getValue().next();
+                    if (visited.add(next)) {
+                        stack.push(new AbstractMap.SimpleEntry<>(next, successors.get(next).iterator()));
+                    }
+                } else {
+                    stack.pop();
+                    order.add(top.getKey());
+                }
             }
         }
+        Collections.reverse(order);
+        return order;
     }
 
     /**
@@ -0,0 +1,145 @@
+package graphs.cfg;
+
+import com.google.common.collect.Multimap;
+
+import java.util.*;
+
+/**
+ * Dominator tree of a graph given by node indices, computed with the iterative algorithm of Cooper, Harvey and
+ * Kennedy ("A Simple, Fast Dominance Algorithm"). All roots are children of a virtual root, so a node is only
+ * dominated by a node that lies on every path from every root to it.
+ * <p>
+ * Build it on the reversed graph to get the post dominator tree.
+ */
+public class DominatorTree {
+
+    /**
+     * Immediate dominator by node index. Roots and unreachable nodes have no entry.
+     */
+    private final Map<Integer, Integer> idom = new HashMap<>();
+
+    private final Map<Integer, Integer> depth = new HashMap<>();
+
+    private final Map<Integer, Integer> preOrder = new HashMap<>();
+
+    private final Map<Integer, Integer> postOrder = new HashMap<>();
+
+    /**
+     * @param roots nodes without a dominator, e.g. the entry node
+     * @param successors edges of the graph
+     * @param predecessors reversed edges of the graph
+     */
+    public DominatorTree(final Collection<Integer> roots,
+                         final Multimap<Integer, Integer> successors,
+                         final Multimap<Integer, Integer> predecessors) {
+        // Position 0 is the virtual root, position i > 0 is the i-th node in reverse post order
+        List<Integer> order = CFG.reversePostOrder(roots, successors);
+        Map<Integer, Integer> position = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            position.put(order.get(i), i + 1);
+        }
+        Set<Integer> rootSet = new HashSet<>(roots);
+
+        int[] doms = new int[order.size() + 1];
+        Arrays.fill(doms, -1);
+        doms[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < doms.length; i++) {
+                Integer node = order.get(i - 1);
+                int newIdom = rootSet.contains(node) ? 0 : -1;
+                for (Integer pred : predecessors.get(node)) {
+                    Integer p = position.get(pred);
+                    if (p == null || doms[p] == -1) {
+                        continue;
+                    }
+                    newIdom = newIdom == -1 ? p : intersect(doms, p, newIdom);
+                }
+                if (doms[i] != newIdom) {
+                    doms[i] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+
+        List<List<Integer>> children = new ArrayList<>();
+        for (int i = 0; i < doms.length; i++) {
+            children.add(new ArrayList<>());
+        }
+        for (int i = 1; i < doms.length; i++) {
+            children.get(doms[i]).add(i);
+            if (doms[i] != 0) {
+                idom.put(order.get(i - 1), order.get(doms[i] - 1));
+            }
+        }
+        numberTree(order, children);
+    }
+
+    private static int intersect(int[] doms, int a, int b) {
+        while (a != b) {
+            while (a > b) {
+                a = doms[a];
+            }
+            while (b > a) {
+                b = doms[b];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Assigns pre and post order numbers to the tree, so that dominance can be checked in constant time.
+     */
+    private void numberTree(List<Integer> order, List<List<Integer>> children) {
+        int counter = 0;
+        Deque<int[]> stack = new ArrayDeque<>();
+        // {position, index of the next child}
+        stack.push(new int[]{0, 0});
+        while (!stack.isEmpty()) {
+            int[] top = stack.peek();
+            List<Integer> next = children.get(top[0]);
+            if (top[1] == 0 && top[0] != 0) {
+                Integer node = order.get(top[0] - 1);
+                preOrder.put(node, counter++);
+                depth.put(node, stack.size() - 1);
+            }
+            if (top[1] < next.size()) {
+                stack.push(new int[]{next.get(top[1]++), 0});
+            } else {
+                stack.pop();
+                if (top[0] != 0) {
+                    postOrder.put(order.get(top[0] - 1), counter++);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the immediate dominator or {@code null} for roots and unreachable nodes
+     */
+    public Integer getImmediateDominator(int node) {
+        return idom.get(node);
+    }
+
+    /**
+     * @return distance to the virtual root, i.e. 1 for roots, or -1 for unreachable nodes
+     */
+    public int getDepth(int node) {
+        return depth.getOrDefault(node, -1);
+    }
+
+    public boolean isReachable(int node) {
+        return preOrder.containsKey(node);
+    }
+
+    /**
+     * @return true if {@code a} dominates {@code b}. Every reachable node dominates itself.
+     */
+    public boolean dominates(int a, int b) {
+        if (!isReachable(a) || !isReachable(b)) {
+            return false;
+        }
+        return preOrder.get(a) <= preOrder.get(b) && postOrder.get(b) <= postOrder.get(a);
+    }
+}
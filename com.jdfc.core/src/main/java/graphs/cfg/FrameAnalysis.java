@@ -0,0 +1,110 @@
+package graphs.cfg;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of the single data flow analysis of a method: the frame before every instruction, in which every value
+ * knows the instructions that may have produced it, and the control flow edges between instructions, including
+ * exception edges. Computed once per method and shared by CFG construction and call site parameter matching.
+ * <p>
+ * Instruction indices refer to the analysis node, see {@link utils.ASMHelper#createAnalysisNode}.
+ */
+@Slf4j
+public class FrameAnalysis {
+
+    private final MethodNode methodNode;
+
+    private final Frame<SourceValue>[] frames;
+
+    private final Multimap<Integer, Integer> edges;
+
+    @SuppressWarnings("unchecked")
+    private FrameAnalysis(MethodNode methodNode, Frame<SourceValue>[] frames, Multimap<Integer, Integer> edges) {
+        this.methodNode = methodNode;
+        this.frames = frames == null ? new Frame[0] : frames;
+        this.edges = edges;
+    }
+
+    public static FrameAnalysis analyze(String owner, MethodNode methodNode) {
+        Multimap<Integer, Integer> edges = ArrayListMultimap.create();
+        Analyzer<SourceValue> analyzer = new Analyzer<SourceValue>(new SourceInterpreter()) {
+            @Override
+            protected void newControlFlowEdge(int insnIndex, int successorIndex) {
+                if (!edges.containsEntry(insnIndex, successorIndex)) {
+                    edges.put(insnIndex, successorIndex);
+                }
+            }
+
+            @Override
+            protected boolean newControlFlowExceptionEdge(int insnIndex, int successorIndex) {
+                if (!edges.containsEntry(insnIndex, successorIndex)) {
+                    edges.put(insnIndex, successorIndex);
+                }
+                return true;
+            }
+        };
+        Frame<SourceValue>[] frames = null;
+        try {
+            frames = analyzer.analyze(owner, methodNode);
+        } catch (AnalyzerException e) {
+            log.debug(e.getMessage());
+            e.printStackTrace();
+        }
+        return new FrameAnalysis(methodNode, frames, edges);
+    }
+
+    /**
+     * @return the frame before the instruction or {@code null} if the instruction is unreachable
+     */
+    public Frame<SourceValue> getFrame(int insnIndex) {
+        return insnIndex < frames.length ? frames[insnIndex] : null;
+    }
+
+    public Multimap<Integer, Integer> getEdges() {
+        return edges;
+    }
+
+    /**
+     * @param insnIndex index of a method invocation
+     * @param descriptor descriptor of the invoked method
+     * @param isStatic true if the invoked method has no receiver
+     * @return the values passed to the invoked method, the receiver first
+     */
+    public List<SourceValue> getInvocationArguments(int insnIndex, String descriptor, boolean isStatic) {
+        Frame<SourceValue> frame = getFrame(insnIndex);
+        int count = Type.getArgumentTypes(descriptor).length + (isStatic ? 0 : 1);
+        if (frame == null || frame.getStackSize() < count) {
+            return Collections.emptyList();
+        }
+        List<SourceValue> result = new ArrayList<>(count);
+        for (int i = frame.getStackSize() - count; i < frame.getStackSize(); i++) {
+            result.add(frame.getStack(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the only instruction that produced the value or -1 if it has several producers
+     */
+    public int getSourceIndex(SourceValue value) {
+        if (value.insns.size() != 1) {
+            return -1;
+        }
+        AbstractInsnNode source = value.insns.iterator().next();
+        return methodNode.instructions.indexOf(source);
+    }
+}
@@ -0,0 +1,211 @@
+package graphs.cfg;
+
+import data.ProgramVariable;
+import graphs.cfg.nodes.CFGNode;
+
+import java.util.*;
+
+/**
+ * Reaching definitions of a {@link CFG} on bit vectors. Every definition of the method gets an index, gen and kill
+ * sets are computed once per node, and the nodes are visited in reverse post order until no set changes.
+ * <p>
+ * The result equals the least fixpoint of the set based update of {@link CFGNode}: the reach of a node contains the
+ * reachOut of all predecessors, its reachOut contains reach and its own definitions without those for which
+ * {@link CFGNode#isRedefinedVariable(ProgramVariable)} holds.
+ */
+class ReachingDefinitions {
+
+    private final CFGNode[] nodes;
+
+    private final ProgramVariable[] definitions;
+
+    private final int words;
+
+    /**
+     * Positions of the predecessors by node position
+     */
+    private final int[][] predecessors;
+
+    private final int[][] gen;
+
+    private final int[][] kill;
+
+    private final int[][] reach;
+
+    private final int[][] reachOut;
+
+    private ReachingDefinitions(final Collection<CFGNode> cfgNodes) {
+        this.nodes = cfgNodes.toArray(new CFGNode[0]);
+        Map<CFGNode, Integer> position = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            position.put(nodes[i], i);
+        }
+
+        // Index all definitions that may reach a node. Predecessors outside of the graph keep their reachOut.
+        Map<ProgramVariable, Integer> index = new LinkedHashMap<>();
+        for (CFGNode node : nodes) {
+            node.getDefinitions().forEach(def -> index.putIfAbsent(def, index.size()));
+            node.getReach().forEach(def -> index.putIfAbsent(def, index.size()));
+            for (CFGNode pred : node.getPred()) {
+                if (!position.containsKey(pred)) {
+                    pred.getReachOut().forEach(def -> index.putIfAbsent(def, index.size()));
+                }
+            }
+        }
+        this.definitions = index.keySet().toArray(new ProgramVariable[0]);
+        this.words = (definitions.length + 31) >>> 5;
+
+        this.predecessors = new int[nodes.length][];
+        this.gen = new int[nodes.length][words];
+        this.kill = new int[nodes.length][words];
+        this.reach = new int[nodes.length][words];
+        this.reachOut = new int[nodes.length][words];
+        for (int i = 0; i < nodes.length; i++) {
+            CFGNode node = nodes[i];
+            int[] pred = new int[node.getPred().size()];
+            int count = 0;
+            for (CFGNode p : node.getPred()) {
+                Integer pos = position.get(p);
+                if (pos != null) {
+                    pred[count++] = pos;
+                } else {
+                    for (ProgramVariable def : p.getReachOut()) {
+                        set(reach[i], index.get(def));
+                    }
+                }
+            }
+            predecessors[i] = Arrays.copyOf(pred, count);
+            for (ProgramVariable def : node.getDefinitions()) {
+                set(gen[i], index.get(def));
+            }
+            for (ProgramVariable def : node.getReach()) {
+                set(reach[i], index.get(def));
+            }
+            // Only definitions named like the method can be redefined, see CFGNode#isRedefinedVariable
+            if (node.getMethodName() != null) {
+                for (int d = 0; d < definitions.length; d++) {
+                    if (node.getMethodName().equals(definitions[d].getName())
+                            && node.isRedefinedVariable(definitions[d])) {
+                        set(kill[i], d);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes reach and reachOut of all nodes and stores them in the nodes.
+     */
+    static void compute(final Collection<CFGNode> nodes) {
+        ReachingDefinitions reachingDefinitions = new ReachingDefinitions(nodes);
+        reachingDefinitions.solve();
+        reachingDefinitions.store();
+    }
+
+    private void solve() {
+        int[] order = reversePostOrder();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int n : order) {
+                int[] in = reach[n];
+                for (int p : predecessors[n]) {
+                    int[] predOut = reachOut[p];
+                    for (int w = 0; w < words; w++) {
+                        in[w] |= predOut[w];
+                    }
+                }
+                int[] out = reachOut[n];
+                for (int w = 0; w < words; w++) {
+                    int value = (in[w] | gen[n][w]) & ~kill[n][w];
+                    if (value != out[w]) {
+                        out[w] = value;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all node positions in reverse post order of a depth first search that starts from every unvisited node
+     * in graph order, i.e. from the entry node first
+     */
+    private int[] reversePostOrder() {
+        int[][] successors = new int[nodes.length][];
+        int[] successorCount = new int[nodes.length];
+        for (int[] pred : predecessors) {
+            for (int p : pred) {
+                successorCount[p]++;
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            successors[i] = new int[successorCount[i]];
+            successorCount[i] = 0;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            for (int p : predecessors[i]) {
+                successors[p][successorCount[p]++] = i;
+            }
+        }
+
+        int[] order = new int[nodes.length];
+        int orderSize = 0;
+        boolean[] visited = new boolean[nodes.length];
+        int[] stack = new int[nodes.length];
+        int[] next = new int[nodes.length];
+        for (int root = 0; root < nodes.length; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int top = 0;
+            stack[top] = root;
+            next[root] = 0;
+            visited[root] = true;
+            while (top >= 0) {
+                int node = stack[top];
+                if (next[node] < successors[node].length) {
+                    int succ = successors[node][next[node]++];
+                    if (!visited[succ]) {
+                        visited[succ] = true;
+                        next[succ] = 0;
+                        stack[++top] = succ;
+                    }
+                } else {
+                    order[orderSize++] = node;
+                    top--;
+                }
+            }
+        }
+        for (int i = 0, j = orderSize - 1; i < j; i++, j--) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    private void store() {
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].setReach(toSet(reach[i]));
+            nodes[i].setReachOut(toSet(reachOut[i]));
+        }
+    }
+
+    private Set<ProgramVariable> toSet(int[] bits) {
+        Set<ProgramVariable> result = new LinkedHashSet<>();
+        for (int w = 0; w < words; w++) {
+            int word = bits[w];
+            while (word != 0) {
+                int bit = Integer.numberOfTrailingZeros(word);
+                result.add(definitions[(w << 5) + bit]);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    private static void set(int[] bits, int index) {
+        bits[index >>> 5] |= 1 << (index & 31);
+    }
+}
@@ -1,7 +1,6 @@
 package graphs.cfg.visitors.classVisitors;
 
 import data.ClassData;
-import graphs.cfg.visitors.methodVisitors.CFGAnalyzerAdapter;
 import graphs.cfg.visitors.methodVisitors.CFGMethodVisitor;
 import instr.classVisitors.JDFCClassVisitor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,9 +35,7 @@ public class CFGClassVisitor extends JDFCClassVisitor {
         final Type[] argTypes = Type.getArgumentTypes(descriptor);
 
         if (methodNode != null && this.asmHelper.isInstrumentationRequired(methodNode, internalMethodName)) {
-            CFGAnalyzerAdapter aa = new CFGAnalyzerAdapter(ASM5,
-                    this.classData.getClassMetaData().getClassFileRelNoType(), access, name, descriptor, null);
-            return new CFGMethodVisitor(this, mv, methodNode, internalMethodName, aa, argTypes.length);
+            return new CFGMethodVisitor(this, mv, methodNode, internalMethodName, argTypes.length);
         }
 
         return mv;
@@ -1,6 +1,8 @@
 package graphs.cfg.visitors.classVisitors;
 
 import data.ClassData;
+import data.MethodData;
+import graphs.cfg.FrameAnalysis;
 import graphs.cfg.visitors.methodVisitors.CFGLocalVariableMethodVisitor;
 import lombok.extern.slf4j.Slf4j;
 import org.objectweb.asm.ClassVisitor;
@@ -13,7 +15,7 @@ import static org.objectweb.asm.Opcodes.ASM5;
 
 /**
  * A class visitor that extracts the information of the local variable table for each method of a
- * class.
+ * class. It also runs the {@link FrameAnalysis} of each method, which is shared by the later stages.
  *
  * @see ClassVisitor
  */
@@ -45,7 +47,9 @@ public class LocalVariableClassVisitor extends ClassVisitor {
         final String internalMethodName = this.asmHelper.computeInternalMethodName(name, descriptor, signature, exceptions);
 
         if (methodNode != null && this.asmHelper.isInstrumentationRequired(methodNode, internalMethodName)) {
-            return new CFGLocalVariableMethodVisitor(this.classData.getMethodByInternalName(internalMethodName));
+            MethodData mData = this.classData.getMethodByInternalName(internalMethodName);
+            mData.setFrameAnalysis(FrameAnalysis.analyze(this.classNode.name, methodNode));
+            return new CFGLocalVariableMethodVisitor(mData);
         }
         return mv;
     }
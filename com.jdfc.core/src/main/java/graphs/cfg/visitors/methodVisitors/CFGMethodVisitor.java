@@ -6,8 +6,8 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import data.MethodData;
 import data.ProgramVariable;
-import data.ProjectData;
 import graphs.cfg.CFG;
+import graphs.cfg.FrameAnalysis;
 import graphs.cfg.LocalVariable;
 import graphs.cfg.nodes.CFGCallNode;
 import graphs.cfg.nodes.CFGEntryNode;
@@ -20,6 +20,7 @@ import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.SourceValue;
 import utils.ASMHelper;
 import utils.JDFCUtils;
 
@@ -32,23 +33,44 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     private final Multimap<Integer, Integer> edges;
     private final NavigableMap<Integer, CFGNode> nodes;
     private final MethodData mData;
-    private final CFGAnalyzerAdapter aa;
     private final int argCount;
     private final boolean isStatic;
     private final ASMHelper asmHelper;
 
+    /**
+     * Used local variable by index of the load instruction
+     */
+    private final Map<Integer, ProgramVariable> localUses = new HashMap<>();
+
+    /**
+     * Calls of methods of the same class, their parameters are matched at the end of the method
+     */
+    private final List<CallSite> callSites = new ArrayList<>();
+
+    private static class CallSite {
+        private final int insnIndex;
+        private final String descriptor;
+        private final MethodData called;
+        private final Map<Integer, ProgramVariable> indexUseMap;
+
+        private CallSite(int insnIndex, String descriptor, MethodData called, Map<Integer, ProgramVariable> indexUseMap) {
+            this.insnIndex = insnIndex;
+            this.descriptor = descriptor;
+            this.called = called;
+            this.indexUseMap = indexUseMap;
+        }
+    }
+
     public CFGMethodVisitor(final CFGClassVisitor pClassVisitor,
                             final MethodVisitor pMethodVisitor,
                             final MethodNode pMethodNode,
                             final String pInternalMethodName,
-                            final CFGAnalyzerAdapter aa,
                             int argCount) {
         super(ASM5, pClassVisitor, pMethodVisitor, pMethodNode, pInternalMethodName);
         this.edges = ArrayListMultimap.create();
         this.nodes = Maps.newTreeMap();
 
         this.mData = pClassVisitor.classData.getMethodByInternalName(internalMethodName);
-        this.aa = aa;
         this.argCount = argCount;
         this.asmHelper = new ASMHelper();
         this.isStatic = this.asmHelper.isStatic(mData.getAccess());
@@ -58,7 +80,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
 //        logger.debug("visitFrame");
         super.visitFrame(type, numLocal, local, numStack, stack);
-        aa.visitFrame(type, numLocal, local, numStack, stack);
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
                 internalMethodName,
@@ -72,7 +93,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     @Override
     public void visitInsn(int opcode) {
         super.visitInsn(opcode);
-        aa.visitInsn(opcode);
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
                 internalMethodName,
@@ -88,7 +108,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
 //        String debug = String.format("visitIntInsn %s", JDFCUtils.getOpcode(opcode));
 //        logger.debug(debug);
         super.visitIntInsn(opcode, operand);
-        aa.visitIntInsn(opcode, operand);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -108,13 +127,11 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         checkForF_NEW();
         super.visitVarInsn(opcode, var);
         createCFGNodeForVarInsnNode(opcode, var, currentInstructionIndex, currentLineNumber);
-        aa.visitVarInsn(opcode, var);
     }
 
     @Override
     public void visitTypeInsn(int opcode, String type) {
         super.visitTypeInsn(opcode, type);
-        aa.visitTypeInsn(opcode, type);
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
                 internalMethodName,
@@ -129,7 +146,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
         super.visitFieldInsn(opcode, owner, name, descriptor);
         createCFGNodeForFieldInsnNode(opcode, owner, name, descriptor, currentInstructionIndex, currentLineNumber);
-        aa.visitFieldInsn(opcode, owner, name, descriptor);
     }
 
     @Override
@@ -138,7 +154,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
 //        String debug = String.format("visitMethodInsn %s", JDFCUtils.getOpcode(opcode));
 //        logger.debug(debug);
         super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
-        aa.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
 
         ASMHelper asmHelper = new ASMHelper();
         String shortCalledMethodName = asmHelper.computeInternalMethodName(
@@ -146,15 +161,14 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
                 descriptor,
                 null,
                 null);
-        MethodData cmData = classVisitor.classData.getMethodByShortInternalName(shortCalledMethodName);
-        if (owner.equals(classVisitor.classNode.name) && cmData != null) {
-            if (cmData.getName().contains("addObservedPoint")) {
-                System.out.println();
-            }
-            Map<Integer, ProgramVariable> paramPositionMap = this.createIndexUseMap(aa.getPopList(), cmData);
-            if (!paramPositionMap.isEmpty()) {
-                paramPositionMap = this.cleanupPVarMap(paramPositionMap, cmData);
-            }
+        // Only calls of methods of this class are resolved
+        MethodData cmData = owner.equals(classVisitor.classNode.name)
+                ? classVisitor.classData.getMethodByShortInternalName(shortCalledMethodName)
+                : null;
+        if (cmData != null) {
+            // Loads after the call in code order have no program variable yet, so the map is filled at the end
+            Map<Integer, ProgramVariable> paramPositionMap = new HashMap<>();
+            callSites.add(new CallSite(currentInstructionIndex, descriptor, cmData, paramPositionMap));
 
             CFGCallNode node = new CFGCallNode(
                     currentInstructionIndex,
@@ -180,57 +194,10 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         }
     }
 
-    /**
-     * This method exists, because on some occasions more than just the method parameters are popped from the operand
-     * stack, which leads to issues when we want to match parameters on call and entry nodes.
-     * Therefore we want to delete all ProgramVariables that are not part of the called methods scope.
-     * We use the first local variable from the called methods variable table and compare its type to the type of
-     * the variables in the pop list.
-     * As soon as these types match we assume that the matching element is the first parameter to match followed by all
-     * other parameters, which require matching.
-     * This is not sure to work at all times.
-     * @param pVarMap
-     * @param called
-     * @return
-     */
-    private Map<Integer, ProgramVariable> cleanupPVarMap(Map<Integer, ProgramVariable> pVarMap, MethodData called) {
-        Map<Integer, ProgramVariable> newMap = new HashMap<>();
-        Optional<LocalVariable> firstOptional = called.getLocalVariableTable().values().stream().findFirst();
-        if (firstOptional.isPresent()) {
-            LocalVariable first = firstOptional.get();
-            String descriptor = first.getDescriptor();
-            int key = -1;
-            boolean foundFirst = false;
-            pVarMap.values().removeIf(Objects::isNull);
-            for (Map.Entry<Integer, ProgramVariable> entry : pVarMap.entrySet()) {
-                if (entry.getValue() != null) {
-                    if (!foundFirst && entry.getValue().getDescriptor().equals(descriptor)) {
-                        foundFirst = true;
-                        key = entry.getKey();
-                    }
-                }
-            }
-
-            int removed = 0;
-            for (int i = 0; i < key; i++) {
-                if (pVarMap.get(i) != null) {
-                    pVarMap.remove(i);
-                    removed++;
-                }
-            }
-
-            for (Map.Entry<Integer, ProgramVariable> entry : pVarMap.entrySet()) {
-                newMap.put(entry.getKey() - removed, entry.getValue());
-            }
-        }
-        return newMap;
-    }
-
     @Override
     public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
 //        logger.debug("visitInvokeDynamicInsn");
         super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
-        aa.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -251,7 +218,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
 //        logger.debug(debug);
         super.visitJumpInsn(opcode, label);
         String debug = JDFCUtils.getOpcode(opcode);
-        aa.visitJumpInsn(opcode, label);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -267,7 +233,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     public void visitLdcInsn(Object value) {
 //        logger.debug("visitLdcInsn");
         super.visitLdcInsn(value);
-        aa.visitLdcInsn(value);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -286,14 +251,12 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         checkForF_NEW();
         super.visitIincInsn(var, increment);
         createCFGNodeForIincInsnNode(var, currentInstructionIndex, currentLineNumber);
-        aa.visitIincInsn(var, increment);
     }
 
     @Override
     public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
 //        logger.debug("visitTableSwitchInsn");
         super.visitTableSwitchInsn(min, max, dflt, labels);
-        aa.visitTableSwitchInsn(min, max, dflt, labels);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -309,7 +272,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
 //        logger.debug("visitLookupSwitchInsn");
         super.visitLookupSwitchInsn(dflt, keys, labels);
-        aa.visitLookupSwitchInsn(dflt, keys, labels);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -325,7 +287,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
     public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
 //        logger.debug("visitMultiANewArrayInsn");
         super.visitMultiANewArrayInsn(descriptor, numDimensions);
-        aa.visitMultiANewArrayInsn(descriptor, numDimensions);
 //        checkForF_NEW();
         final CFGNode node = new CFGNode(
                 classVisitor.classNode.name,
@@ -342,7 +303,12 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
 //        logger.debug("visitEnd");
         super.visitEnd();
 
+        for (CallSite callSite : callSites) {
+            callSite.indexUseMap.putAll(createIndexUseMap(callSite));
+        }
         edges.putAll(createEdges());
+        // Call sites and edges are resolved, the frames are not needed anymore
+        this.mData.setFrameAnalysis(null);
         this.addEntryAndExitNode();
 
         this.setPredecessorSuccessorRelation();
@@ -405,7 +371,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         final String varName = getLocalVarName(localVarIdx);
         final String varType = getLocalVarType(localVarIdx);
         final boolean isDefinition = isDefinition(opcode);
-        UUID id = UUID.randomUUID();
+        UUID id = JDFCUtils.createId(mData.getId(), "local", localVarIdx, insnIdx, isDefinition);
         ProgramVariable var = new ProgramVariable(
                 id,
                 localVarIdx,
@@ -419,9 +385,10 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
                 false,
                 false
         );
-        ProjectData.getInstance().getProgramVariableMap().put(id, var);
-        mData.getPVarIds().add(id);
-        aa.setPVar(var);
+        mData.addPVar(var);
+        if (!isDefinition) {
+            localUses.put(insnIdx, var);
+        }
         return var;
     }
 
@@ -458,7 +425,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
             case PUTFIELD:
             case PUTSTATIC:
                 programVariable = new ProgramVariable(
-                        UUID.randomUUID(),
+                        JDFCUtils.createId(mData.getId(), "field", owner, name, insnIdx, true),
                         Integer.MIN_VALUE,
                         owner,
                         internalMethodName,
@@ -470,8 +437,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
                         false,
                         true
                 );
-                ProjectData.getInstance().getProgramVariableMap().put(programVariable.getId(), programVariable);
-                mData.getPVarIds().add(programVariable.getId());
+                mData.addPVar(programVariable);
 //                classVisitor.classData.getFieldDefinitions().computeIfAbsent(mData.getId(), k -> new HashMap<>());
 //                classVisitor.classData.getFieldDefinitions().get(mData.getId()).put(programVariable.getId(), programVariable);
                 node = new CFGNode(
@@ -487,7 +453,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
             case GETFIELD:
             case GETSTATIC:
                 programVariable = new ProgramVariable(
-                        UUID.randomUUID(),
+                        JDFCUtils.createId(mData.getId(), "field", owner, name, insnIdx, false),
                         Integer.MIN_VALUE,
                         owner,
                         "test",
@@ -499,8 +465,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
                         false,
                         true
                 );
-                ProjectData.getInstance().getProgramVariableMap().put(programVariable.getId(), programVariable);
-                mData.getPVarIds().add(programVariable.getId());
+                mData.addPVar(programVariable);
                 node = new CFGNode(
                         classVisitor.classNode.name,
                         internalMethodName,
@@ -590,58 +555,33 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         nodes.put(pIndex, node);
     }
 
-    private Map<Integer, ProgramVariable> createIndexUseMap(List<Object> popList, MethodData called) {
-        List<Object> local = new ArrayList<>(popList);
+    /**
+     * Matches the arguments of a call to the used local variables that were loaded for them. The receiver of an
+     * instance method has position 0, like "this" in the entry node of the called method.
+     */
+    private Map<Integer, ProgramVariable> createIndexUseMap(CallSite callSite) {
         Map<Integer, ProgramVariable> result = new HashMap<>();
-        // Reverse list is necessary, because arguments are popped from the stack in reverse order
-        Collections.reverse(local);
-        // Add "this" if called procedure is not static
-        int index = 0;
-        if (!asmHelper.isStatic(called.getAccess()) && !isStatic) {
-            ProgramVariable p = createPVarThis(currentInstructionIndex);
-            if (p != null) {
-                result.put(index, p);
-                index++;
-            }
+        FrameAnalysis frameAnalysis = mData.getFrameAnalysis();
+        if (frameAnalysis == null) {
+            return result;
         }
-
-        // Match params to their position in method call
-        List<String> paramTypes = asmHelper.extractParameterTypes(called.toString());
-        while (!paramTypes.isEmpty()) {
-            String type = paramTypes.remove(0);
-            if (!local.isEmpty()) {
-                Object a = local.remove(0);
-                if (Objects.equals(type, "D") || Objects.equals(type, "J")) {
-                    if (!local.isEmpty()) {
-                        // could be empty when exception occurs
-                        Object b = local.remove(0);
-                        if (!(a instanceof ProgramVariable || b instanceof ProgramVariable)) {
-                            result.put(index, null);
-                        } else if (a instanceof ProgramVariable) {
-                            result.put(index, (ProgramVariable) a);
-                        } else {
-                            result.put(index, (ProgramVariable) b);
-                        }
-                    }
-                } else {
-                    if (a instanceof ProgramVariable) {
-                        result.put(index, (ProgramVariable) a);
-                    } else {
-                        result.put(index, null);
-                    }
-                }
-                index++;
+        List<SourceValue> arguments = frameAnalysis.getInvocationArguments(callSite.insnIndex,
+                callSite.descriptor, asmHelper.isStatic(callSite.called.getAccess()));
+        for (int index = 0; index < arguments.size(); index++) {
+            ProgramVariable use = localUses.get(frameAnalysis.getSourceIndex(arguments.get(index)));
+            if (use != null) {
+                result.put(index, use);
             }
         }
         return result;
     }
 
     private Multimap<Integer, Integer> createEdges() {
-//        logger.debug("createEdges");
-        CFGEdgeAnalysisVisitor cfgEdgeAnalysisVisitor =
-                new CFGEdgeAnalysisVisitor(methodNode);
-        methodNode.accept(cfgEdgeAnalysisVisitor);
-        return cfgEdgeAnalysisVisitor.getEdges();
+        Multimap<Integer, Integer> result = ArrayListMultimap.create();
+        if (mData.getFrameAnalysis() != null) {
+            result.putAll(mData.getFrameAnalysis().getEdges());
+        }
+        return result;
     }
 
     private void setPredecessorSuccessorRelation() {
@@ -660,8 +600,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         Map<Integer, ProgramVariable> pVarMap = new HashMap<>();
         int idx = 0;
         for(ProgramVariable def : definitions) {
-            ProjectData.getInstance().getProgramVariableMap().put(def.getId(), def);
-            mData.getPVarIds().add(def.getId());
+            mData.addPVar(def);
             pVarMap.put(idx, def);
             idx++;
         }
@@ -738,23 +677,6 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
         }
     }
 
-    private ProgramVariable createPVarThis(int insnIndex) {
-        ProgramVariable var = null;
-        for(ProgramVariable p : mData.getPVarsFromStore().values()) {
-            if(var == null  && p.getName().equals("this")) {
-                var = p;
-            }
-
-            if(p.getName().equals("this")
-                    && p.getInstructionIndex() < insnIndex
-                    && var.getInstructionIndex() < p.getInstructionIndex()) {
-                var = p;
-            }
-
-        }
-        return var;
-    }
-
     /**
      * Creates a program variable from every variable in the local variable table.<br>
      * This includes "this" (the current object reference) and all variables that are defined locally
@@ -774,7 +696,7 @@ public class CFGMethodVisitor extends JDFCMethodVisitor {
             if ((isStatic && entry.getKey() < threshold) || (!isStatic && entry.getKey() <= threshold)) {
                 final ProgramVariable variable =
                         new ProgramVariable(
-                                UUID.randomUUID(),
+                                JDFCUtils.createId(mData.getId(), "param", entry.getKey(), entry.getValue().getName()),
                                 entry.getValue().getIndex(),
                                 mData.getClassName(),
                                 mData.buildInternalMethodName(),
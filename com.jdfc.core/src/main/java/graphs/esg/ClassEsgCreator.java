@@ -286,9 +286,11 @@ public class ClassEsgCreator {
                                                 esgCurr.getDefinitionMaps().get(srcCallIdx).put(match.getId(), srcVarId);
 
                                                 Multimap<UUID, UUID> matchesMap = ProjectData.getInstance().getMatchesMap();
-                                                Collection<UUID> matches = matchesMap.get(match.getId());
-                                                if (matches != null && !matches.contains(srcVarId)) {
-                                                    matchesMap.put(match.getId(), srcVarId);
+                                                synchronized (matchesMap) {
+                                                    Collection<UUID> matches = matchesMap.get(match.getId());
+                                                    if (matches != null && !matches.contains(srcVarId)) {
+                                                        matchesMap.put(match.getId(), srcVarId);
+                                                    }
                                                 }
                                             }
                                         }
@@ -342,9 +344,11 @@ public class ClassEsgCreator {
                                                 esgCurr.getDefinitionMaps().get(srcCallIdx).put(match.getId(), srcVarId);
 
                                                 Multimap<UUID, UUID> matchesMap = ProjectData.getInstance().getMatchesMap();
-                                                Collection<UUID> matches = matchesMap.get(match.getId());
-                                                if (matches != null && !matches.contains(srcVarId)) {
-                                                    matchesMap.put(match.getId(), srcVarId);
+                                                synchronized (matchesMap) {
+                                                    Collection<UUID> matches = matchesMap.get(match.getId());
+                                                    if (matches != null && !matches.contains(srcVarId)) {
+                                                        matchesMap.put(match.getId(), srcVarId);
+                                                    }
                                                 }
                                             }
                                         }
@@ -393,9 +397,11 @@ public class ClassEsgCreator {
                                                 esgCurr.getDefinitionMaps().get(srcCallIdx).put(match.getId(), srcVarId);
 
                                                 Multimap<UUID, UUID> matchesMap = ProjectData.getInstance().getMatchesMap();
-                                                Collection<UUID> matches = matchesMap.get(match.getId());
-                                                if (matches != null && !matches.contains(srcVarId)) {
-                                                    matchesMap.put(match.getId(), srcVarId);
+                                                synchronized (matchesMap) {
+                                                    Collection<UUID> matches = matchesMap.get(match.getId());
+                                                    if (matches != null && !matches.contains(srcVarId)) {
+                                                        matchesMap.put(match.getId(), srcVarId);
+                                                    }
                                                 }
                                             }
                                         }
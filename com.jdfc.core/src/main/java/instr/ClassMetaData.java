@@ -26,6 +26,10 @@ public class ClassMetaData implements Serializable {
     private String outerName;
     private String name;
     private UUID classDataId;
+    /**
+     * Hash of the original class file, see {@link utils.JDFCUtils#hash(byte[])}
+     */
+    private String classFileHash;
 
     public ClassMetaData(String classesDirAbs, String sourceDirAbs, String classFileAbs) {
         this.isInnerClass = classFileAbs.contains("$");
@@ -0,0 +1,209 @@
+package instr;
+
+import data.*;
+import lombok.extern.slf4j.Slf4j;
+import utils.JDFCUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent cache of instrumented classes. An entry holds the instrumented bytes together with the model of the
+ * class, i.e. its {@link ClassData}, {@link MethodData}, {@link ProgramVariable} and {@link PairData}. Entries are
+ * keyed by the hash of the class file, the hash of the source file and every option that changes the
+ * instrumentation, so a changed input never hits a stale entry.
+ * <p>
+ * The cache is opt-in, see {@link ProjectData#isCacheEnabled()}. Entries that were not used for
+ * {@link #MAX_AGE_DAYS} days are evicted, and of the remaining entries only the {@link #MAX_ENTRIES} most recently
+ * used are kept. Eviction runs once per JVM before the first entry is written.
+ */
+@Slf4j
+public class InstrumentationCache {
+
+    /**
+     * Increment when the analysis or the emitted probes change, so that entries of older versions are not used.
+     */
+    private static final int VERSION = 3;
+
+    private static final int MAX_ENTRIES = 10000;
+
+    private static final long MAX_AGE_DAYS = 30;
+
+    private static final AtomicBoolean evicted = new AtomicBoolean(false);
+
+    private final File dir;
+
+    public InstrumentationCache(File dir) {
+        this.dir = dir;
+    }
+
+    private static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private byte[] instrumented;
+        private ClassData classData;
+        private List<MethodData> methods = new ArrayList<>();
+        private List<ProgramVariable> pVars = new ArrayList<>();
+        private List<PairData> pairs = new ArrayList<>();
+        private Map<UUID, List<UUID>> matches = new HashMap<>();
+    }
+
+    public String computeKey(byte[] classFileBuffer, ClassMetaData classMetaData, boolean isInterProcedural) {
+        ProjectData pData = ProjectData.getInstance();
+        String sourceHash = "";
+        File sourceFile = classMetaData.getSourceFile();
+        if (sourceFile != null && sourceFile.exists()) {
+            try {
+                sourceHash = JDFCUtils.hash(Files.readAllBytes(sourceFile.toPath()));
+            } catch (IOException e) {
+                log.debug(e.getMessage());
+            }
+        }
+        String config = String.join(",",
+                String.valueOf(VERSION),
+                String.valueOf(isInterProcedural),
+                String.valueOf(pData.getProbeMode()),
+                String.valueOf(pData.isMinimizeProbes()),
+                String.valueOf(pData.isLoopFlags()),
+                String.valueOf(pData.isSwitchableProbes()),
+                String.valueOf(pData.isPreserveFrames()),
+                String.valueOf(pData.isBytecodeOnly()));
+        return JDFCUtils.hash(String.join("|",
+                JDFCUtils.hash(classFileBuffer),
+                sourceHash,
+                config).getBytes());
+    }
+
+    /**
+     * Publishes the cached model of the class to {@link ProjectData}.
+     *
+     * @return the cached instrumented bytes or {@code null} if there is no entry
+     */
+    public byte[] load(String key, ClassMetaData classMetaData) {
+        File file = new File(dir, key);
+        if (!file.exists()) {
+            return null;
+        }
+        Entry entry;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            entry = (Entry) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.debug(String.format("Invalid cache entry %s: %s", file, e.getMessage()));
+            return null;
+        }
+        // The modification time is the last use of the entry
+        file.setLastModified(System.currentTimeMillis());
+
+        if (entry.classData != null) {
+            ProjectData pData = ProjectData.getInstance();
+            for (MethodData mData : entry.methods) {
+                pData.getMethodDataMap().put(mData.getId(), mData);
+            }
+            for (ProgramVariable pVar : entry.pVars) {
+                pData.getProgramVariableMap().put(pVar.getId(), pVar);
+            }
+            for (PairData pair : entry.pairs) {
+                pData.putDefUsePair(pair);
+            }
+            entry.matches.forEach((id, matches) -> pData.getMatchesMap().putAll(id, matches));
+            // Paths of the cached meta data may be outdated
+            classMetaData.setClassDataId(entry.classData.getId());
+            entry.classData.setClassMetaData(classMetaData);
+            pData.publishClass(classMetaData, entry.classData);
+        }
+        return entry.instrumented;
+    }
+
+    /**
+     * @param classData the model of the class or {@code null} if the class was not instrumented
+     */
+    public void store(String key, byte[] instrumented, ClassData classData) {
+        Entry entry = new Entry();
+        entry.instrumented = instrumented;
+        entry.classData = classData;
+        if (classData != null) {
+            ProjectData pData = ProjectData.getInstance();
+            Set<UUID> pVarIds = new HashSet<>();
+            for (MethodData mData : classData.getMethodDataFromStore().values()) {
+                entry.methods.add(mData);
+                for (UUID id : mData.getPVarIds()) {
+                    ProgramVariable pVar = pData.getProgramVariableMap().get(id);
+                    if (pVar != null) {
+                        entry.pVars.add(pVar);
+                        pVarIds.add(id);
+                    }
+                }
+                for (UUID id : mData.getDuPairIds()) {
+                    PairData pair = pData.getDefUsePairMap().get(id);
+                    if (pair != null) {
+                        entry.pairs.add(pair);
+                    }
+                }
+            }
+            for (UUID id : pVarIds) {
+                Collection<UUID> matches = pData.getMatchesMap().get(id);
+                synchronized (pData.getMatchesMap()) {
+                    if (!matches.isEmpty()) {
+                        entry.matches.put(id, new ArrayList<>(matches));
+                    }
+                }
+            }
+        }
+
+        // Write to a temporary file first, so that concurrent readers never see a partial entry
+        try {
+            if (!dir.mkdirs() && !dir.exists()) {
+                throw new IOException("Cache directory could not be created: " + dir);
+            }
+            if (evicted.compareAndSet(false, true)) {
+                this.evict();
+            }
+            File tmp = File.createTempFile(key, ".tmp", dir);
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeObject(entry);
+            }
+            Files.move(tmp.toPath(), new File(dir, key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug(String.format("Cache entry %s could not be written: %s", key, e.getMessage()));
+        }
+    }
+
+    /**
+     * Deletes entries that were not used for {@link #MAX_AGE_DAYS} days and the least recently used entries beyond
+     * {@link #MAX_ENTRIES}. Entries that are deleted concurrently by another JVM are skipped.
+     */
+    private void evict() {
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        long minLastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+        List<File> entries = new ArrayList<>(files.length);
+        Map<File, Long> lastModified = new HashMap<>();
+        int deleted = 0;
+        for (File file : files) {
+            long time = file.lastModified();
+            if (time < minLastModified) {
+                deleted += file.delete() ? 1 : 0;
+            } else {
+                entries.add(file);
+                lastModified.put(file, time);
+            }
+        }
+        if (entries.size() > MAX_ENTRIES) {
+            entries.sort(Comparator.comparing(lastModified::get));
+            for (File file : entries.subList(0, entries.size() - MAX_ENTRIES)) {
+                deleted += file.delete() ? 1 : 0;
+            }
+        }
+        if (deleted > 0) {
+            log.debug(String.format("Evicted %d cache entries from %s", deleted, dir));
+        }
+    }
+}
@@ -16,12 +16,18 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
+import utils.ASMHelper;
 import utils.JDFCUtils;
+import utils.JavaParserHelper;
 
 import java.io.*;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -55,8 +61,7 @@ public class Instrumenter {
         String outPath = String.join(File.separator, outDir.getAbsolutePath(), classFile.getName());
         try (FileOutputStream fos = new FileOutputStream(outPath)){
             byte[] classFileBuffer = Files.readAllBytes(classFile.toPath());
-            ClassReader cr = new ClassReader(classFileBuffer);
-            byte[] instrumented = this.instrument(cr, classMetaData);
+            byte[] instrumented = this.instrumentCached(classFileBuffer, classMetaData);
             fos.write(instrumented);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -64,9 +69,66 @@ public class Instrumenter {
     }
 
     public byte[] instrumentClass(byte[] classFileBuffer, String classFileAbs) {
-        ClassReader cr = new ClassReader(classFileBuffer);
         ClassMetaData classMetaData = new ClassMetaData(classesDirAbs, sourceDirAbs, classFileAbs);
-        return this.instrument(cr, classMetaData);
+        return this.instrumentCached(classFileBuffer, classMetaData);
+    }
+
+    /**
+     * Serves unchanged classes from the {@link InstrumentationCache} if it is enabled and instruments all others.
+     */
+    private byte[] instrumentCached(byte[] classFileBuffer, ClassMetaData classMetaData) {
+        classMetaData.setClassFileHash(JDFCUtils.hash(classFileBuffer));
+        if (!ProjectData.getInstance().isCacheEnabled()) {
+            return this.instrument(new ClassReader(classFileBuffer), classMetaData);
+        }
+        InstrumentationCache cache = new InstrumentationCache(new File(JDFCUtils.getJDFCCacheDirAbs()));
+        String key = cache.computeKey(classFileBuffer, classMetaData, isInterProcedural);
+        byte[] instrumented = cache.load(key, classMetaData);
+        if (instrumented != null) {
+            log.info("Cache hit: " + classMetaData.getClassFileAbs());
+            return instrumented;
+        }
+        instrumented = this.instrument(new ClassReader(classFileBuffer), classMetaData);
+        // Skipped classes have no class data, their entry only holds the bytes
+        ClassData classData = classMetaData.getClassDataId() == null
+                ? null
+                : ProjectData.getInstance().getClassDataMap().get(classMetaData.getClassDataId());
+        cache.store(key, instrumented, classData);
+        return instrumented;
+    }
+
+    /**
+     * Instruments the class files on a work-stealing pool. Every class is analysed on its own and all ids are name
+     * based, so the result equals the one of a serial run.
+     *
+     * @param classFiles class files to instrument
+     * @param threads number of worker threads
+     */
+    public void instrumentClasses(List<File> classFiles, int threads) {
+        long start = System.nanoTime();
+        LongAdder busyNanos = new LongAdder();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(classFiles.size());
+            for (File classFile : classFiles) {
+                tasks.add(pool.submit(() -> {
+                    long classStart = System.nanoTime();
+                    this.instrumentClass(classFile.getAbsolutePath());
+                    busyNanos.add(System.nanoTime() - classStart);
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long busyMillis = TimeUnit.NANOSECONDS.toMillis(busyNanos.sum());
+        log.info(String.format("Instrumented %d classes with %d threads in %d ms (%d ms instrumentation time, speedup %.2f)",
+                classFiles.size(), pool.getParallelism(), wallMillis, busyMillis,
+                wallMillis == 0 ? 1.0 : (double) busyMillis / wallMillis));
+        log.info(JavaParserHelper.getInstance().getStatistics());
     }
 
     public List<File> loadClassFiles() {
@@ -105,9 +167,12 @@ public class Instrumenter {
     }
 
     public byte[] instrument(ClassReader classReader, ClassMetaData classMetaData) {
-        final ClassNode classNode = new ClassNode();
-        classReader.accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-        final ClassWriter cw = new ClassWriter(classReader, ClassWriter.COMPUTE_FRAMES);
+        // The class is decoded once, every stage replays the tree
+        final ClassNode sourceNode = new ClassNode();
+        classReader.accept(sourceNode, ClassReader.EXPAND_FRAMES);
+        final ClassNode classNode = new ASMHelper().createAnalysisNode(sourceNode);
+        final boolean isFramePreserving = this.isFramePreserving();
+        final ClassWriter cw = new ClassWriter(classReader, isFramePreserving ? 0 : ClassWriter.COMPUTE_FRAMES);
 
         // skip instrumentation for nested classes
         if(this.isInterface(classNode.access)) {
@@ -133,33 +198,20 @@ public class Instrumenter {
             return cw.toByteArray();
         }
 
-        // Add class meta data
-        ProjectData.getInstance().getClassMetaDataMap().put(classMetaData.getFqn(), classMetaData);
-
-        // Create PackageData of class
-        String packageRel = classMetaData.getClassFilePackageRel();
-        if (ProjectData.getInstance().getPackageDataMap().get(packageRel) == null) {
-            PackageData packageData = new PackageData(packageRel);
-            ProjectData.getInstance().getPackageDataMap().put(packageRel, packageData);
-        }
-
-        // Create ClassData and MethodData of class
+        // Create ClassData and MethodData of class. The class is registered when its instrumentation succeeded.
         CreateClassDataVisitor createClassDataVisitor = new CreateClassDataVisitor(classNode, classMetaData);
-        classReader.accept(createClassDataVisitor, 0);
-
-        // Get ClassData
-        UUID classDataId = ProjectData.getInstance().getClassMetaDataMap().get(classMetaData.getFqn()).getClassDataId();
-        ClassData classData = ProjectData.getInstance().getClassDataMap().get(classDataId);
+        sourceNode.accept(createClassDataVisitor);
+        ClassData classData = createClassDataVisitor.getClassData();
 
         log.info("Start instrumentation for intra-procedural analysis.");
 
         // Find local variables for all methods
         LocalVariableClassVisitor localVariableVisitor = new LocalVariableClassVisitor(classNode, classData);
-        classReader.accept(localVariableVisitor, ClassReader.EXPAND_FRAMES);
+        sourceNode.accept(localVariableVisitor);
 
         // Create CFGs for all methods
         final CFGClassVisitor cfgClassVisitor = new CFGClassVisitor(classNode, classData);
-        classReader.accept(cfgClassVisitor, ClassReader.EXPAND_FRAMES);
+        sourceNode.accept(cfgClassVisitor);
 
         // Calculate DefUsePairs
         // Todo: This needs to stay here.
@@ -232,7 +284,7 @@ public class Instrumenter {
                 try (PrintWriter beforeWriter = new PrintWriter(new FileWriter(beforeFile, true))) {
                     TraceClassVisitor beforeTcv = new TraceClassVisitor(iv, beforeWriter);
                     // cr -> beforeTcv -> iv -> afterTcv -> cw
-                    classReader.accept(beforeTcv, ClassReader.EXPAND_FRAMES);
+                    sourceNode.accept(beforeTcv);
                 } catch (IOException ioException) {
                     ioException.printStackTrace();
                 }
@@ -246,7 +298,7 @@ public class Instrumenter {
             ClassVisitor cv = new InstrumentationClassVisitor(cw, classNode, classData);
 
             // cr -> cv -> cw
-            classReader.accept(cv, ClassReader.EXPAND_FRAMES);
+            sourceNode.accept(cv);
         }
 
         // Surround everything with a try-catch
@@ -281,7 +333,18 @@ public class Instrumenter {
 
         // Check if generated bytecode is correct
 //        CheckClassAdapter.verify(new ClassReader(cw.toByteArray()), false, new PrintWriter(System.err));
-        return cw.toByteArray();
+        byte[] instrumented = cw.toByteArray();
+        if (isFramePreserving && log.isDebugEnabled()) {
+            // The preserved frames are not checked by the writer
+            StringWriter verifierOutput = new StringWriter();
+            CheckClassAdapter.verify(new ClassReader(instrumented), false, new PrintWriter(verifierOutput));
+            if (verifierOutput.getBuffer().length() > 0) {
+                log.error(String.format("Verification of %s failed:%n%s",
+                        classMetaData.getClassFileRel(), verifierOutput));
+            }
+        }
+        ProjectData.getInstance().publishClass(classMetaData, classData);
+        return instrumented;
     }
 
 //    private void loadAllRequiredClasses(ClassMetaData classMetaData) {
@@ -316,6 +379,20 @@ public class Instrumenter {
 //        }
 //    }
 
+    /**
+     * Probes of {@link ProbeMode#STRING}, {@link ProbeMode#ARRAY} and {@link ProbeMode#COUNT} are straight-line code
+     * that leaves locals and operand stack as they were, so the frames of the original class stay valid and only the
+     * maximum stack size grows. Pair probes add locals, loop flags and switchable probes add branches, these need
+     * frames to be computed.
+     */
+    public boolean isFramePreserving() {
+        ProjectData pData = ProjectData.getInstance();
+        return pData.isPreserveFrames()
+                && pData.getProbeMode() != ProbeMode.PAIR
+                && !pData.isLoopFlags()
+                && !pData.isSwitchableProbes();
+    }
+
     private boolean isAnonymousInnerClass(String fqn) {
         String[] parts = fqn.split("\\$");
         if (parts.length == 1) {
@@ -0,0 +1,157 @@
+package instr;
+
+import data.ClassData;
+import data.MethodData;
+import data.PairData;
+import data.ProgramVariable;
+
+import java.util.*;
+
+/**
+ * Probe layout of {@link ProbeMode#PAIR}. Every local variable of a method gets a shadow int local that holds the
+ * row of the definition executed last, where row 0 means "unknown" and row {@code d + 1} is the d-th definition of
+ * the variable. A use with column {@code j} then sets the probe
+ * {@code base + row * useCount + j}, which identifies the exact (last definition, use) pair at runtime.
+ * <p>
+ * Pair probes are appended to the program variable probes of the class.
+ */
+public class PairProbeLayout {
+
+    /**
+     * Variables with more pair slots than this are not tracked, their pairs fall back to def and use coverage.
+     */
+    public static final int MAX_SLOTS_PER_VARIABLE = 1 << 12;
+
+    public static class Variable {
+        private final UUID methodId;
+        private final int index;
+        private final int base;
+        private final int useCount;
+        private int entryRow = 0;
+
+        private Variable(UUID methodId, int index, int base, int useCount) {
+            this.methodId = methodId;
+            this.index = index;
+            this.base = base;
+            this.useCount = useCount;
+        }
+
+        public UUID getMethodId() {
+            return methodId;
+        }
+
+        /**
+         * @return index of the variable's shadow local relative to the method's original max locals
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public int getBase() {
+            return base;
+        }
+
+        public int getUseCount() {
+            return useCount;
+        }
+
+        /**
+         * @return row of the definition present at method entry, i.e. a parameter, or 0
+         */
+        public int getEntryRow() {
+            return entryRow;
+        }
+    }
+
+    private final Map<UUID, List<Variable>> variablesByMethod = new HashMap<>();
+    private final Map<UUID, Variable> variableByPVarId = new HashMap<>();
+    private final Map<UUID, Integer> defRows = new HashMap<>();
+    private final Map<UUID, Integer> useColumns = new HashMap<>();
+    private final List<UUID> pairProbeIds = new ArrayList<>();
+
+    /**
+     * @param cData class to compute the layout for
+     * @param offset index of the first pair probe within the probe array of the class
+     */
+    public PairProbeLayout(ClassData cData, int offset) {
+        for (MethodData mData : cData.getMethodDataFromStore().values()) {
+            Map<String, List<ProgramVariable>> defs = new TreeMap<>();
+            Map<String, List<ProgramVariable>> uses = new TreeMap<>();
+            for (ProgramVariable pVar : mData.getPVarsFromStore().values()) {
+                if (pVar == null || Boolean.TRUE.equals(pVar.getIsField())) {
+                    continue;
+                }
+                Map<String, List<ProgramVariable>> target = pVar.getIsDefinition() ? defs : uses;
+                target.computeIfAbsent(pVar.getName(), k -> new ArrayList<>()).add(pVar);
+            }
+
+            Map<List<UUID>, UUID> pairIds = new HashMap<>();
+            for (PairData pair : mData.getDUPairsFromStore().values()) {
+                pairIds.put(Arrays.asList(pair.getDefId(), pair.getUseId()), pair.getId());
+            }
+
+            List<Variable> variables = new ArrayList<>();
+            for (Map.Entry<String, List<ProgramVariable>> entry : uses.entrySet()) {
+                List<ProgramVariable> varDefs = defs.getOrDefault(entry.getKey(), Collections.emptyList());
+                List<ProgramVariable> varUses = entry.getValue();
+                int slots = (varDefs.size() + 1) * varUses.size();
+                if (varDefs.isEmpty() || slots > MAX_SLOTS_PER_VARIABLE) {
+                    continue;
+                }
+                varDefs.sort(Comparator.comparing(ProgramVariable::getInstructionIndex));
+                varUses.sort(Comparator.comparing(ProgramVariable::getInstructionIndex));
+
+                Variable variable = new Variable(mData.getId(), variables.size(), offset + pairProbeIds.size(), varUses.size());
+                variables.add(variable);
+                pairProbeIds.addAll(Collections.nCopies(slots, null));
+                for (int d = 0; d < varDefs.size(); d++) {
+                    ProgramVariable def = varDefs.get(d);
+                    int row = d + 1;
+                    defRows.put(def.getId(), row);
+                    variableByPVarId.put(def.getId(), variable);
+                    if (def.getInstructionIndex() == Integer.MIN_VALUE) {
+                        variable.entryRow = row;
+                    }
+                    for (int j = 0; j < varUses.size(); j++) {
+                        UUID pairId = pairIds.get(Arrays.asList(def.getId(), varUses.get(j).getId()));
+                        pairProbeIds.set(variable.base - offset + row * variable.useCount + j, pairId);
+                    }
+                }
+                for (int j = 0; j < varUses.size(); j++) {
+                    useColumns.put(varUses.get(j).getId(), j);
+                    variableByPVarId.put(varUses.get(j).getId(), variable);
+                }
+            }
+            variablesByMethod.put(mData.getId(), variables);
+        }
+    }
+
+    public List<Variable> getVariables(UUID methodId) {
+        return variablesByMethod.getOrDefault(methodId, Collections.emptyList());
+    }
+
+    public Variable getVariable(UUID pVarId) {
+        return variableByPVarId.get(pVarId);
+    }
+
+    /**
+     * @return row of the definition or -1 if the variable is no tracked definition
+     */
+    public int getDefRow(UUID pVarId) {
+        return defRows.getOrDefault(pVarId, -1);
+    }
+
+    /**
+     * @return column of the use or -1 if the variable is no tracked use
+     */
+    public int getUseColumn(UUID pVarId) {
+        return useColumns.getOrDefault(pVarId, -1);
+    }
+
+    /**
+     * @return def-use pair ids by pair probe index, {@code null} for slots without a statically known pair
+     */
+    public List<UUID> getPairProbeIds() {
+        return pairProbeIds;
+    }
+}
@@ -0,0 +1,81 @@
+package instr;
+
+import data.ProjectData;
+import lombok.extern.slf4j.Slf4j;
+import utils.JDFCUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Classes instrumented ahead of time by {@link Instrumenter#instrumentClass(String)}. The index is built once from
+ * the class meta data of the previous (offline) run, its model is reachable via {@link ProjectData#getOld()}. A
+ * class is only served if its class file is unchanged and it was instrumented with the current options.
+ */
+@Slf4j
+public class PreInstrumentedClasses {
+
+    /**
+     * Meta data by internal class name
+     */
+    private final Map<String, ClassMetaData> index;
+
+    private final String instrumentedDirAbs;
+
+    private PreInstrumentedClasses(Map<String, ClassMetaData> index, String instrumentedDirAbs) {
+        this.index = index;
+        this.instrumentedDirAbs = instrumentedDirAbs;
+    }
+
+    public static PreInstrumentedClasses load() {
+        ProjectData old = ProjectData.getOld();
+        ProjectData current = ProjectData.getInstance();
+        if (old == null || !isSameConfiguration(old, current)) {
+            return new PreInstrumentedClasses(Collections.emptyMap(), JDFCUtils.getJDFCDir());
+        }
+        Map<String, ClassMetaData> index = new HashMap<>();
+        for (ClassMetaData classMetaData : old.getClassMetaDataMap().values()) {
+            if (classMetaData.getClassFileHash() != null) {
+                index.put(classMetaData.getClassNodeName(), classMetaData);
+            }
+        }
+        return new PreInstrumentedClasses(index, JDFCUtils.getJDFCDir());
+    }
+
+    private static boolean isSameConfiguration(ProjectData a, ProjectData b) {
+        return a.isInterProcedural() == b.isInterProcedural()
+                && Objects.equals(a.getProbeMode(), b.getProbeMode())
+                && a.isMinimizeProbes() == b.isMinimizeProbes()
+                && a.isLoopFlags() == b.isLoopFlags()
+                && a.isSwitchableProbes() == b.isSwitchableProbes()
+                && a.isPreserveFrames() == b.isPreserveFrames()
+                && a.isBytecodeOnly() == b.isBytecodeOnly();
+    }
+
+    /**
+     * @param className internal name of the class
+     * @param classFileBuffer the original class file
+     * @return the instrumented class file or {@code null} if the class has to be instrumented
+     */
+    public byte[] get(String className, byte[] classFileBuffer) {
+        ClassMetaData classMetaData = index.get(className);
+        if (classMetaData == null || !classMetaData.getClassFileHash().equals(JDFCUtils.hash(classFileBuffer))) {
+            return null;
+        }
+        File instrumented = new File(instrumentedDirAbs + classMetaData.getClassFileRel());
+        if (!instrumented.exists()) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(instrumented.toPath());
+        } catch (IOException e) {
+            log.debug(String.format("Instrumented class %s could not be read: %s", instrumented, e.getMessage()));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package instr;
+
+import data.MethodData;
+import data.ProgramVariable;
+import graphs.cfg.CFG;
+import graphs.cfg.DominatorTree;
+
+import java.util.*;
+
+/**
+ * Finds probes that do not need to be inserted, because their execution can be inferred from another probe when
+ * the report is built. A probe {@code p} is implied by a probe {@code q} if {@code p} dominates {@code q} and
+ * {@code q} post dominates {@code p}: every execution of {@code q} passed {@code p} and every execution of
+ * {@code p} reaches {@code q}. Within a basic block this holds for every probe and the last probe of the block.
+ * <p>
+ * An exception that is not caught within the method may leave it between {@code p} and {@code q}, in which case
+ * {@code p} is reported as not covered.
+ */
+public class ProbeMinimizer {
+
+    private ProbeMinimizer() {
+    }
+
+    /**
+     * @return id of the implying program variable by id of the elided program variable
+     */
+    public static Map<UUID, UUID> minimize(final MethodData mData) {
+        CFG cfg = mData.getCfg();
+        if (cfg == null) {
+            return Collections.emptyMap();
+        }
+
+        // Only nodes with exactly one probed variable take part, a node key is the instruction index + 1
+        Map<Integer, List<UUID>> nodeProbes = new TreeMap<>();
+        for (ProgramVariable pVar : mData.getPVarsFromStore().values()) {
+            if (pVar == null
+                    || Boolean.TRUE.equals(pVar.getIsField())
+                    || pVar.getInstructionIndex() == Integer.MIN_VALUE) {
+                continue;
+            }
+            nodeProbes.computeIfAbsent(pVar.getInstructionIndex() + 1, k -> new ArrayList<>()).add(pVar.getId());
+        }
+        nodeProbes.values().removeIf(ids -> ids.size() != 1);
+        if (nodeProbes.size() < 2) {
+            return Collections.emptyMap();
+        }
+
+        Map<Integer, Integer> blocks = cfg.calculateBasicBlocks();
+        DominatorTree dominators = cfg.calculateDominators();
+        DominatorTree postDominators = cfg.calculatePostDominators();
+
+        // The last probe of a block is dominated by all other probes of the block
+        Map<Integer, Integer> lastOfBlock = new HashMap<>();
+        for (Integer node : nodeProbes.keySet()) {
+            if (!dominators.isReachable(node)) {
+                continue;
+            }
+            lastOfBlock.merge(blocks.get(node), node, (a, b) -> dominators.dominates(a, b) ? b : a);
+        }
+
+        Map<Integer, Integer> impliedBy = new HashMap<>();
+        for (Integer node : nodeProbes.keySet()) {
+            Integer last = lastOfBlock.get(blocks.get(node));
+            if (last != null && !last.equals(node)) {
+                impliedBy.put(node, last);
+            }
+        }
+
+        // Across blocks the deepest implying probe in the dominator tree is never elided itself
+        Set<Integer> candidates = new HashSet<>(lastOfBlock.values());
+        for (Integer node : candidates) {
+            Integer dom = dominators.getImmediateDominator(node);
+            while (dom != null) {
+                if (candidates.contains(dom) && postDominators.dominates(node, dom)) {
+                    Integer current = impliedBy.get(dom);
+                    if (current == null || dominators.getDepth(current) < dominators.getDepth(node)) {
+                        impliedBy.put(dom, node);
+                    }
+                }
+                dom = dominators.getImmediateDominator(dom);
+            }
+        }
+
+        Map<UUID, UUID> result = new HashMap<>();
+        for (Integer node : impliedBy.keySet()) {
+            Integer implying = node;
+            while (impliedBy.containsKey(implying)) {
+                implying = impliedBy.get(implying);
+            }
+            result.put(nodeProbes.get(node).get(0), nodeProbes.get(implying).get(0));
+        }
+        return result;
+    }
+}
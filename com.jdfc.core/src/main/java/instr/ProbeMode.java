@@ -0,0 +1,47 @@
+package instr;
+
+/**
+ * Determines the bytecode that is emitted for every tracked program variable.
+ */
+public enum ProbeMode {
+
+    /**
+     * {@code LDC "<uuid>"} followed by a call to {@code ProjectData.trackVar(String)}.
+     */
+    STRING,
+
+    /**
+     * Inline store into a per-class {@code boolean[]} indexed by the variable's ordinal within the class.
+     */
+    ARRAY,
+
+    /**
+     * Like {@link #ARRAY} but increments a per-class {@code long[]} hit counter instead of setting a flag.
+     */
+    COUNT,
+
+    /**
+     * Like {@link #ARRAY} and additionally records the exact (last definition, use) pair of every use with the help
+     * of shadow locals, see {@link PairProbeLayout}.
+     */
+    PAIR;
+
+    /**
+     * @return true if probes write into the class-local array initialized by {@code __jdfc_initialize}
+     */
+    public boolean isArrayBased() {
+        return this == ARRAY || this == COUNT || this == PAIR;
+    }
+
+    public static ProbeMode fromString(String value) {
+        if (value == null || value.isEmpty()) {
+            return STRING;
+        }
+        for (ProbeMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown probe mode: " + value);
+    }
+}
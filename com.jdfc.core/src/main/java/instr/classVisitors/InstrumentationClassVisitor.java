@@ -1,17 +1,23 @@
 package instr.classVisitors;
 
 import data.ClassData;
+import data.ProbeRegistry;
+import data.ProjectData;
+import instr.ProbeMode;
 import instr.methodVisitors.InstrumentationMethodVisitor;
 import lombok.Getter;
 import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import utils.ASMHelper;
 
-import static org.objectweb.asm.Opcodes.ASM5;
+import static org.objectweb.asm.Opcodes.*;
+import static utils.Constants.*;
 
 @Getter
 public class InstrumentationClassVisitor extends JDFCClassVisitor {
@@ -20,19 +26,50 @@ public class InstrumentationClassVisitor extends JDFCClassVisitor {
 
     private final ASMHelper asmHelper = new ASMHelper();
 
+    private static final String PROBE_REGISTRY = Type.getInternalName(ProbeRegistry.class);
+    private static final String PROBE_REGISTRY_REGISTER = "register";
+    private static final String PROBE_REGISTRY_REGISTER_DESC = "(Ljava/lang/Class;Ljava/lang/String;I)[Z";
+    private static final String PROBE_REGISTRY_REGISTER_COUNTS = "registerCounts";
+    private static final String PROBE_REGISTRY_REGISTER_COUNTS_DESC = "(Ljava/lang/Class;Ljava/lang/String;I)[J";
+    private static final String PROBE_REGISTRY_TOUCH = "touch";
+    private static final String PROBE_REGISTRY_TOUCH_DESC = "(Ljava/lang/Class;)V";
+    private static final String PROBE_REGISTRY_COPY_AND_CLEAR = "copyAndClear";
+    private static final String PROBE_REGISTRY_COPY_AND_CLEAR_DESC = "([Z)[Z";
+    private static final String PROBE_REGISTRY_COPY_AND_CLEAR_COUNTS_DESC = "([J)[J";
+
     private String className;
 
+    private int version;
+
+    private final ProbeMode probeMode;
 
     public InstrumentationClassVisitor(final ClassVisitor pClassVisitor,
                                        final ClassNode pClassNode,
                                        final ClassData pClassData) {
         super(ASM5, pClassVisitor, pClassNode, pClassData);
+        ProbeMode mode = ProjectData.getInstance().getProbeMode();
+        this.probeMode = mode == null ? ProbeMode.STRING : mode;
+        if (probeMode.isArrayBased()) {
+            pClassData.assignProbeIds();
+        }
+        if (probeMode == ProbeMode.PAIR) {
+            pClassData.assignPairProbeIds();
+        }
+        // Hit counts of implied probes can not be inferred
+        if (ProjectData.getInstance().isMinimizeProbes() && probeMode != ProbeMode.COUNT) {
+            pClassData.minimizeProbes();
+        }
     }
 
     @Override
     public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
         this.className = name;
+        this.version = version;
         super.visit(version, access, name, signature, superName, interfaces);
+        if (probeMode.isArrayBased()) {
+            super.visitField(ACC_PRIVATE | ACC_STATIC | ACC_TRANSIENT | ACC_SYNTHETIC,
+                    FIELD_TEST_DATA, getProbeFieldDescriptor(), null, null).visitEnd();
+        }
     }
 
     @Override
@@ -51,6 +88,128 @@ public class InstrumentationClassVisitor extends JDFCClassVisitor {
         return mv;
     }
 
+    @Override
+    public void visitEnd() {
+        if (probeMode.isArrayBased()) {
+            insertInitializeMethod();
+            insertGetAndResetMethod();
+        }
+        super.visitEnd();
+    }
+
+    /**
+     * Emits the lazy initializer that is called once on entry of every method with probes:
+     * <pre>
+     * private static boolean[] __jdfc_initialize() {
+     *     boolean[] data = __jdfc_test_data;
+     *     if (data == null) {
+     *         data = ProbeRegistry.register(Owner.class, "&lt;classDataId&gt;", &lt;probeCount&gt;);
+     *         __jdfc_test_data = data;
+     *     }
+     *     if (!data[&lt;probeCount&gt;]) {
+     *         ProbeRegistry.touch(Owner.class);
+     *     }
+     *     return data;
+     * }
+     * </pre>
+     * In {@link ProbeMode#COUNT} the array is a {@code long[]} obtained from {@code ProbeRegistry.registerCounts}.
+     * Threads that race on the first call get the same array from the registry. The element after the probes is the
+     * touched flag, which the registry clears on every snapshot.
+     */
+    private void insertInitializeMethod() {
+        MethodVisitor mv = super.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC,
+                METHOD_INIT, getInitDescriptor(), null, null);
+        mv.visitCode();
+        mv.visitFieldInsn(GETSTATIC, className, FIELD_TEST_DATA, getProbeFieldDescriptor());
+        mv.visitInsn(DUP);
+        Label initialized = new Label();
+        mv.visitJumpInsn(IFNONNULL, initialized);
+        mv.visitInsn(POP);
+        pushClass(mv);
+        mv.visitLdcInsn(classData.getId().toString());
+        asmHelper.pushInt(mv, classData.getProbeCount());
+        if (probeMode == ProbeMode.COUNT) {
+            mv.visitMethodInsn(INVOKESTATIC, PROBE_REGISTRY, PROBE_REGISTRY_REGISTER_COUNTS, PROBE_REGISTRY_REGISTER_COUNTS_DESC, false);
+        } else {
+            mv.visitMethodInsn(INVOKESTATIC, PROBE_REGISTRY, PROBE_REGISTRY_REGISTER, PROBE_REGISTRY_REGISTER_DESC, false);
+        }
+        mv.visitInsn(DUP);
+        mv.visitFieldInsn(PUTSTATIC, className, FIELD_TEST_DATA, getProbeFieldDescriptor());
+        mv.visitLabel(initialized);
+        visitInitializeFrame(mv);
+        mv.visitInsn(DUP);
+        asmHelper.pushInt(mv, classData.getProbeCount());
+        Label touched = new Label();
+        if (probeMode == ProbeMode.COUNT) {
+            mv.visitInsn(LALOAD);
+            mv.visitInsn(LCONST_0);
+            mv.visitInsn(LCMP);
+        } else {
+            mv.visitInsn(BALOAD);
+        }
+        mv.visitJumpInsn(IFNE, touched);
+        pushClass(mv);
+        mv.visitMethodInsn(INVOKESTATIC, PROBE_REGISTRY, PROBE_REGISTRY_TOUCH, PROBE_REGISTRY_TOUCH_DESC, false);
+        mv.visitLabel(touched);
+        visitInitializeFrame(mv);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(probeMode == ProbeMode.COUNT ? 5 : 3, 0);
+        mv.visitEnd();
+    }
+
+    private void pushClass(MethodVisitor mv) {
+        if ((version & 0xFFFF) >= V1_5) {
+            mv.visitLdcInsn(Type.getObjectType(className));
+        } else {
+            // Class constants are not supported in older class files
+            mv.visitLdcInsn(Type.getObjectType(className).getClassName());
+            mv.visitMethodInsn(INVOKESTATIC, "java/lang/Class", "forName", "(Ljava/lang/String;)Ljava/lang/Class;", false);
+        }
+    }
+
+    private void visitInitializeFrame(MethodVisitor mv) {
+        if ((version & 0xFFFF) >= V1_6) {
+            // Frames are not computed if the original frames are preserved
+            mv.visitFrame(F_NEW, 0, new Object[0], 1, new Object[]{getProbeFieldDescriptor()});
+        }
+    }
+
+    /**
+     * Emits the accessor used to collect the coverage of the class:
+     * <pre>
+     * public static boolean[] __jdfc_getAndReset() {
+     *     return ProbeRegistry.copyAndClear(__jdfc_test_data);
+     * }
+     * </pre>
+     * The array stays in place, so probes of running methods keep writing into the array that is collected.
+     */
+    private void insertGetAndResetMethod() {
+        MethodVisitor mv = super.visitMethod(ACC_PUBLIC | ACC_STATIC | ACC_SYNTHETIC,
+                METHOD_GET_AND_RESET, getGetAndResetDescriptor(), null, null);
+        mv.visitCode();
+        mv.visitFieldInsn(GETSTATIC, className, FIELD_TEST_DATA, getProbeFieldDescriptor());
+        if (probeMode == ProbeMode.COUNT) {
+            mv.visitMethodInsn(INVOKESTATIC, PROBE_REGISTRY, PROBE_REGISTRY_COPY_AND_CLEAR, PROBE_REGISTRY_COPY_AND_CLEAR_COUNTS_DESC, false);
+        } else {
+            mv.visitMethodInsn(INVOKESTATIC, PROBE_REGISTRY, PROBE_REGISTRY_COPY_AND_CLEAR, PROBE_REGISTRY_COPY_AND_CLEAR_DESC, false);
+        }
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(1, 0);
+        mv.visitEnd();
+    }
+
+    private String getProbeFieldDescriptor() {
+        return probeMode == ProbeMode.COUNT ? FIELD_TEST_DATA_COUNT_DESCRIPTOR : FIELD_TEST_DATA_DESCRIPTOR;
+    }
+
+    private String getInitDescriptor() {
+        return probeMode == ProbeMode.COUNT ? METHOD_INIT_COUNT_DESCRIPTOR : METHOD_INIT_DESCRIPTOR;
+    }
+
+    private String getGetAndResetDescriptor() {
+        return probeMode == ProbeMode.COUNT ? METHOD_GET_AND_RESET_COUNT_DESCRIPTOR : METHOD_GET_AND_RESET_DESCRIPTOR;
+    }
+
     private static class CustomClassLoader extends ClassLoader{
         public CustomClassLoader(ClassLoader parent) {
             super(parent);
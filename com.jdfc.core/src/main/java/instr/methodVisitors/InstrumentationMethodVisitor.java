@@ -1,9 +1,12 @@
 package instr.methodVisitors;
 
 import data.MethodData;
+import data.ProbeSwitch;
 import data.ProgramVariable;
 import data.ProjectData;
 import graphs.cfg.LocalVariable;
+import instr.PairProbeLayout;
+import instr.ProbeMode;
 import instr.classVisitors.InstrumentationClassVisitor;
 import lombok.extern.slf4j.Slf4j;
 import org.objectweb.asm.*;
@@ -14,9 +17,7 @@ import utils.JDFCUtils;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 
 import static org.objectweb.asm.Opcodes.*;
 import static utils.Constants.*;
@@ -26,9 +27,55 @@ public class InstrumentationMethodVisitor extends JDFCMethodVisitor {
 
     private final String className;
     private final ASMHelper asmHelper;
+    private final ProbeMode probeMode;
+    private final PairProbeLayout pairProbeLayout;
+    private UUID pairMethodId;
+    private final boolean loopFlags;
+
+    /**
+     * Local variable index of the "already recorded" flag by program variable id of probes within loops.
+     */
+    private final Map<UUID, Integer> loopFlagIndices = new HashMap<>();
+
+    /**
+     * Local variable index of the probe array of the class or -1 if the method has no array based probes. The array
+     * is loaded once on method entry, so a probe is a plain array store.
+     */
+    private int probeArrayIdx = -1;
+
+    /**
+     * Number of locals added behind the original locals of the method.
+     */
+    private int shadowLocalCount = 0;
+
+    /**
+     * Probes within loops beyond this number per method are inserted without flag.
+     */
+    private static final int MAX_LOOP_FLAGS = 256;
+
+    /**
+     * Maximum number of operand stack slots used by a probe on top of the stack of the method. A probe of
+     * {@link ProbeMode#COUNT} holds array, index and two longs.
+     */
+    private static final int PROBE_MAX_STACK = 6;
+
+    private final boolean switchable;
+
+    /**
+     * True if the class file version allows to guard probes with {@code invokedynamic}.
+     */
+    private final boolean indySwitch;
 
     private static final String COVERAGE_DATA_STORE = Type.getInternalName(ProjectData.class);
 
+    private static final String PROBE_SWITCH = Type.getInternalName(ProbeSwitch.class);
+    private static final Handle PROBE_SWITCH_BOOTSTRAP = new Handle(
+            H_INVOKESTATIC,
+            PROBE_SWITCH,
+            "bootstrap",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+            false);
+
     private static final String TRACK_NEW_OBJECT = "trackNewObject";
     private static final String TRACK_NEW_OBJECT_DESC = "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/String;)V";
 
@@ -46,12 +93,50 @@ public class InstrumentationMethodVisitor extends JDFCMethodVisitor {
         super(ASM5, pClassVisitor, pMethodVisitor, pMethodNode, internalMethodName);
         this.className = pClassVisitor.getClassName();
         this.asmHelper = new ASMHelper();
+        this.probeMode = pClassVisitor.getProbeMode();
+        this.pairProbeLayout = probeMode == ProbeMode.PAIR ? pClassVisitor.classData.getPairProbeLayout() : null;
+        // Hit counts must be incremented on every iteration
+        this.loopFlags = ProjectData.getInstance().isLoopFlags() && probeMode != ProbeMode.COUNT;
+        this.switchable = ProjectData.getInstance().isSwitchableProbes();
+        this.indySwitch = (pClassVisitor.getVersion() & 0xFFFF) >= V1_7;
 //        this.aa = aa;
     }
 
+    @Override
+    public void visitCode() {
+        super.visitCode();
+        MethodData mData = classVisitor.classData.getMethodByInternalName(internalMethodName);
+        if (mData == null) {
+            return;
+        }
+        if (pairProbeLayout != null) {
+            insertShadowLocalInitialization(mData);
+        }
+        if (loopFlags && mData.getCfg() != null) {
+            insertLoopFlagInitialization(mData);
+        }
+        if (probeMode.isArrayBased() && hasArrayProbes(mData)) {
+            insertProbeArrayInitialization();
+        }
+    }
+
     @Override
     public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
-        super.visitFrame(type, numLocal, local, numStack, stack);
+        if (probeArrayIdx >= 0 && type == F_NEW) {
+            // Preserved frames must declare the probe array local, computed frames are ignored by the writer
+            List<Object> locals = new ArrayList<>(Arrays.asList(local).subList(0, numLocal));
+            int slots = 0;
+            for (Object value : locals) {
+                slots += value == LONG || value == DOUBLE ? 2 : 1;
+            }
+            for (; slots < probeArrayIdx; slots++) {
+                locals.add(TOP);
+            }
+            locals.add(probeMode == ProbeMode.COUNT ? FIELD_TEST_DATA_COUNT_DESCRIPTOR : FIELD_TEST_DATA_DESCRIPTOR);
+            super.visitFrame(type, locals.size(), locals.toArray(), numStack, stack);
+        } else {
+            super.visitFrame(type, numLocal, local, numStack, stack);
+        }
 //        aa.visitFrame(type, numLocal, local, numStack, stack);
     }
 
@@ -159,7 +244,8 @@ public class InstrumentationMethodVisitor extends JDFCMethodVisitor {
 
     @Override
     public void visitMaxs(int maxStack, int maxLocals) {
-        super.visitMaxs(maxStack, maxLocals);
+        // Only needed if frames are preserved, otherwise the writer computes the maximums itself
+        super.visitMaxs(maxStack + PROBE_MAX_STACK, maxLocals + shadowLocalCount);
     }
 
     @Override
@@ -356,15 +442,187 @@ public class InstrumentationMethodVisitor extends JDFCMethodVisitor {
                         }
                     }
                 } else {
-                    mv.visitLdcInsn(pId.toString());
-                    mv.visitMethodInsn(
-                            Opcodes.INVOKESTATIC,
-                            Type.getInternalName(ProjectData.class),
-                            "trackVar",
-                            "(Ljava/lang/String;)V",
-                            false);
+                    if (loopFlagIndices.containsKey(pId)) {
+                        insertFlaggedProbe(pId, loopFlagIndices.get(pId));
+                    } else if (!classVisitor.classData.isImpliedProbe(pId)) {
+                        insertProbe(pId);
+                    }
+                    if (pairProbeLayout != null) {
+                        insertPairProbe(pId);
+                    }
                 }
             }
         }
     }
+
+    /**
+     * Initializes the shadow locals of all tracked variables of the method with the row of their parameter
+     * definition or 0. Shadow locals are placed behind the original locals of the method.
+     */
+    private void insertShadowLocalInitialization(MethodData mData) {
+        pairMethodId = mData.getId();
+        List<PairProbeLayout.Variable> variables = pairProbeLayout.getVariables(pairMethodId);
+        for (PairProbeLayout.Variable variable : variables) {
+            asmHelper.pushInt(mv, variable.getEntryRow());
+            mv.visitVarInsn(ISTORE, methodNode.maxLocals + variable.getIndex());
+        }
+        shadowLocalCount += variables.size();
+    }
+
+    /**
+     * Assigns an "already recorded" flag local to every probe within a natural loop of the method and initializes
+     * it with false. A flagged probe is executed once per method invocation instead of once per iteration.
+     */
+    private void insertLoopFlagInitialization(MethodData mData) {
+        Set<Integer> loopNodes = mData.getCfg().calculateLoopNodes();
+        List<ProgramVariable> pVars = new ArrayList<>();
+        for (ProgramVariable pVar : mData.getPVarsFromStore().values()) {
+            if (pVar != null
+                    && !Boolean.TRUE.equals(pVar.getIsField())
+                    && pVar.getInstructionIndex() != Integer.MIN_VALUE
+                    && loopNodes.contains(pVar.getInstructionIndex() + 1)
+                    && !classVisitor.classData.isImpliedProbe(pVar.getId())) {
+                pVars.add(pVar);
+            }
+        }
+        pVars.sort(Comparator.comparing(ProgramVariable::getInstructionIndex));
+        for (ProgramVariable pVar : pVars.subList(0, Math.min(pVars.size(), MAX_LOOP_FLAGS))) {
+            int flagIdx = methodNode.maxLocals + shadowLocalCount++;
+            loopFlagIndices.put(pVar.getId(), flagIdx);
+            mv.visitInsn(ICONST_0);
+            mv.visitVarInsn(ISTORE, flagIdx);
+        }
+    }
+
+    private boolean hasArrayProbes(MethodData mData) {
+        if (pairProbeLayout != null && !pairProbeLayout.getVariables(mData.getId()).isEmpty()) {
+            return true;
+        }
+        for (UUID pId : mData.getPVarsFromStore().keySet()) {
+            if (classVisitor.classData.getProbeIndex(pId) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores the probe array of the class into a local behind the original locals of the method.
+     */
+    private void insertProbeArrayInitialization() {
+        probeArrayIdx = methodNode.maxLocals + shadowLocalCount++;
+        String descriptor = probeMode == ProbeMode.COUNT ? METHOD_INIT_COUNT_DESCRIPTOR : METHOD_INIT_DESCRIPTOR;
+        mv.visitMethodInsn(INVOKESTATIC, className, METHOD_INIT, descriptor, false);
+        mv.visitVarInsn(ASTORE, probeArrayIdx);
+    }
+
+    /**
+     * Pushes the probe array of the class.
+     */
+    private void loadProbeArray(String descriptor) {
+        if (probeArrayIdx >= 0) {
+            mv.visitVarInsn(ALOAD, probeArrayIdx);
+        } else {
+            mv.visitMethodInsn(INVOKESTATIC, className, METHOD_INIT, descriptor, false);
+        }
+    }
+
+    private void insertFlaggedProbe(UUID pId, int flagIdx) {
+        // if (!flag) { probe; flag = true; }
+        Label recorded = new Label();
+        if (switchable) {
+            insertSwitchCheck(recorded);
+        }
+        mv.visitVarInsn(ILOAD, flagIdx);
+        mv.visitJumpInsn(IFNE, recorded);
+        insertProbeInstructions(pId);
+        mv.visitInsn(ICONST_1);
+        mv.visitVarInsn(ISTORE, flagIdx);
+        mv.visitLabel(recorded);
+    }
+
+    /**
+     * A definition stores its row into the shadow local of the variable. A use sets the probe of the pair formed
+     * by the definition in the shadow local and itself.
+     */
+    private void insertPairProbe(UUID pId) {
+        PairProbeLayout.Variable variable = pairProbeLayout.getVariable(pId);
+        if (variable == null || !variable.getMethodId().equals(pairMethodId)) {
+            return;
+        }
+        int shadowIdx = methodNode.maxLocals + variable.getIndex();
+        int row = pairProbeLayout.getDefRow(pId);
+        int column = pairProbeLayout.getUseColumn(pId);
+        if (row >= 0) {
+            // shadow = row;
+            asmHelper.pushInt(mv, row);
+            mv.visitVarInsn(ISTORE, shadowIdx);
+        } else if (column >= 0) {
+            Label disabled = new Label();
+            if (switchable) {
+                insertSwitchCheck(disabled);
+            }
+            // data[base + shadow * useCount + column] = true;
+            loadProbeArray(METHOD_INIT_DESCRIPTOR);
+            mv.visitVarInsn(ILOAD, shadowIdx);
+            asmHelper.pushInt(mv, variable.getUseCount());
+            mv.visitInsn(IMUL);
+            asmHelper.pushInt(mv, variable.getBase() + column);
+            mv.visitInsn(IADD);
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(BASTORE);
+            mv.visitLabel(disabled);
+        }
+    }
+
+    private void insertProbe(UUID pId) {
+        if (!switchable) {
+            insertProbeInstructions(pId);
+            return;
+        }
+        Label disabled = new Label();
+        insertSwitchCheck(disabled);
+        insertProbeInstructions(pId);
+        mv.visitLabel(disabled);
+    }
+
+    /**
+     * Jumps to {@code disabled} if probes are switched off, see {@link ProbeSwitch}.
+     */
+    private void insertSwitchCheck(Label disabled) {
+        if (indySwitch) {
+            mv.visitInvokeDynamicInsn("isEnabled", "()Z", PROBE_SWITCH_BOOTSTRAP);
+        } else {
+            mv.visitFieldInsn(GETSTATIC, PROBE_SWITCH, "enabled", "Z");
+        }
+        mv.visitJumpInsn(IFEQ, disabled);
+    }
+
+    private void insertProbeInstructions(UUID pId) {
+        int probeIdx = probeMode.isArrayBased() ? classVisitor.classData.getProbeIndex(pId) : -1;
+        if (probeIdx >= 0 && probeMode == ProbeMode.COUNT) {
+            // data[probeIdx]++;
+            loadProbeArray(METHOD_INIT_COUNT_DESCRIPTOR);
+            asmHelper.pushInt(mv, probeIdx);
+            mv.visitInsn(DUP2);
+            mv.visitInsn(LALOAD);
+            mv.visitInsn(LCONST_1);
+            mv.visitInsn(LADD);
+            mv.visitInsn(LASTORE);
+        } else if (probeIdx >= 0) {
+            // data[probeIdx] = true;
+            loadProbeArray(METHOD_INIT_DESCRIPTOR);
+            asmHelper.pushInt(mv, probeIdx);
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(BASTORE);
+        } else {
+            mv.visitLdcInsn(pId.toString());
+            mv.visitMethodInsn(
+                    Opcodes.INVOKESTATIC,
+                    COVERAGE_DATA_STORE,
+                    "trackVar",
+                    "(Ljava/lang/String;)V",
+                    false);
+        }
+    }
 }
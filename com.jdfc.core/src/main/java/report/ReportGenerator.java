@@ -2,7 +2,12 @@ package report;
 
 import data.*;
 import data.ProjectData;
+import data.visitors.SourceDeclarationResolver;
 
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,6 +28,7 @@ public class ReportGenerator {
     }
 
     public void create() {
+        this.resolveSourceDeclarations();
         this.computeProjectCoverage();
         if (this.xml) {
             this.xmlReportGenerator.create();
@@ -32,6 +38,19 @@ public class ReportGenerator {
         }
     }
 
+    /**
+     * Classes analysed in bytecode-only mode only know the lines of their bytecode. The report needs the lines and
+     * declarations of the source.
+     */
+    private void resolveSourceDeclarations() {
+        if (!ProjectData.getInstance().isBytecodeOnly()) {
+            return;
+        }
+        for (ClassData classData : ProjectData.getInstance().getClassDataMap().values()) {
+            SourceDeclarationResolver.resolve(classData);
+        }
+    }
+
     private void computeProjectCoverage() {
         this.computeVarCoverage();
         this.computePairCoverage();
@@ -57,10 +76,36 @@ public class ReportGenerator {
         for (String id : ProjectData.getInstance().getCoveredPVarIds()) {
             ProjectData.getInstance().getProgramVariableMap().get(UUID.fromString(id)).setIsCovered(true);
         }
+        // Elided probes are covered if their implying probe is covered
+        for (ClassData classData : ProjectData.getInstance().getClassDataMap().values()) {
+            if (classData.getImpliedProbeIds() == null) {
+                continue;
+            }
+            for (Map.Entry<UUID, UUID> entry : classData.getImpliedProbeIds().entrySet()) {
+                ProgramVariable implying = ProjectData.getInstance().getProgramVariableMap().get(entry.getValue());
+                if (implying != null && Boolean.TRUE.equals(implying.getIsCovered())) {
+                    ProjectData.getInstance().getProgramVariableMap().get(entry.getKey()).setIsCovered(true);
+                }
+            }
+        }
     }
 
+    /**
+     * Pairs that are tracked by {@link instr.ProbeMode#PAIR} probes are covered if they were observed at runtime.
+     * All other pairs are covered if both their definition and use are covered.
+     */
     private void computePairCoverage() {
+        Set<UUID> trackedPairIds = new HashSet<>();
+        for (ClassData classData : ProjectData.getInstance().getClassDataMap().values()) {
+            if (classData.getPairProbeIds() != null) {
+                classData.getPairProbeIds().stream().filter(Objects::nonNull).forEach(trackedPairIds::add);
+            }
+        }
         for (PairData pair : ProjectData.getInstance().getDefUsePairMap().values()) {
+            if (trackedPairIds.contains(pair.getId())) {
+                pair.setCovered(ProjectData.getInstance().isPairCovered(pair.getId()));
+                continue;
+            }
             boolean defIsCovered = ProjectData.getInstance().getProgramVariableMap().get(pair.getDefId()).getIsCovered();
             boolean useIsCovered = ProjectData.getInstance().getProgramVariableMap().get(pair.getUseId()).getIsCovered();
             pair.setCovered(defIsCovered && useIsCovered);
@@ -16,9 +16,12 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 public class XMLReportGenerator {
 
+    private static final int HOTTEST_LIMIT = 10;
+
     private final String outputDirAbs;
 
     public XMLReportGenerator(String outputDirAbs) {
@@ -114,6 +117,22 @@ public class XMLReportGenerator {
                         }
                     }
 
+                    List<ProgramVariable> hottestPVars = cData.getHottestPVars(HOTTEST_LIMIT);
+                    if (!hottestPVars.isEmpty()) {
+                        Element hottest = doc.createElement("hottest");
+                        clazz.appendChild(hottest);
+                        for (ProgramVariable pVar : hottestPVars) {
+                            Element var = doc.createElement(pVar.getIsDefinition() ? "def" : "use");
+                            var.setAttribute("name", pVar.getName());
+                            var.setAttribute("type", pVar.getDescriptor());
+                            var.setAttribute("method", pVar.getMethodName());
+                            var.setAttribute("line", String.valueOf(pVar.getLineNumber()));
+                            var.setAttribute("idx", String.valueOf(pVar.getInstructionIndex()));
+                            var.setAttribute("hits", String.valueOf(ProjectData.getInstance().getHitCount(pVar.getId())));
+                            hottest.appendChild(var);
+                        }
+                    }
+
                     Element pairs = doc.createElement("pairs");
                     clazz.appendChild(pairs);
 
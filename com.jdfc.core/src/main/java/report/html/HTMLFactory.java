@@ -69,6 +69,11 @@ public class HTMLFactory {
      */
     final String SCRIPT = "script.js";
 
+    /**
+     * Number of entries in the table of hottest definitions and uses
+     */
+    final int HOTTEST_LIMIT = 10;
+
     public void createPkgIndexHTML(File pkg, Map<UUID, ClassData> classDataMap) throws IOException {
         String indexPath = String.format("%s/index.html", pkg);
         File index = new File(indexPath);
@@ -160,10 +165,35 @@ public class HTMLFactory {
         HTMLElement htmlBodyTag = createDefaultHTMLBody(pClassFileName, pClassFile, pPathToScript, null);
         List<String> columns = new ArrayList<>(Arrays.asList("Total", "Covered", "Missed"));
         htmlBodyTag.getContent().add(createMethodsTable(columns, pData, pClassFileName));
+        List<ProgramVariable> hottestPVars = pData.getHottestPVars(HOTTEST_LIMIT);
+        if (!hottestPVars.isEmpty()) {
+            htmlBodyTag.getContent().add(HTMLElement.h1("Hottest Definitions and Uses"));
+            htmlBodyTag.getContent().add(createHottestTable(hottestPVars, pClassFileName));
+        }
         htmlMainTag.getContent().add(htmlBodyTag);
         return htmlMainTag;
     }
 
+    private HTMLElement createHottestTable(final List<ProgramVariable> pVars,
+                                           final String pClassfileName) {
+        HTMLElement tableTag = HTMLElement.table();
+        tableTag.getContent().add(createTableHeadTag(Arrays.asList("Type", "Line", "Hits")));
+        HTMLElement bodyTag = HTMLElement.tbody();
+        for (ProgramVariable pVar : pVars) {
+            String link = String.format("%s.java.html#L%s", pClassfileName, pVar.getLineNumber());
+            HTMLElement trTag = HTMLElement.tr();
+            HTMLElement tdTag = HTMLElement.td();
+            tdTag.getContent().add(HTMLElement.a(link, pVar.getName()));
+            trTag.getContent().add(tdTag);
+            trTag.getContent().add(HTMLElement.td(pVar.getIsDefinition() ? "Definition" : "Use"));
+            trTag.getContent().add(HTMLElement.td(pVar.getLineNumber()));
+            trTag.getContent().add(HTMLElement.td(String.valueOf(ProjectData.getInstance().getHitCount(pVar.getId()))));
+            bodyTag.getContent().add(trTag);
+        }
+        tableTag.getContent().add(bodyTag);
+        return tableTag;
+    }
+
     private HTMLElement createBreadcrumbs(File pWorkDir) {
         List<String> split =
                 new ArrayList<>(Arrays.asList(pWorkDir.toPath().relativize(baseDir.toPath()).toString().replace(File.separator, "/").split("/")));
@@ -1,15 +1,14 @@
 package utils;
 
 import data.ProgramVariable;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static org.objectweb.asm.Opcodes.*;
 
@@ -81,6 +80,21 @@ public class ASMHelper {
         return  isDefaultConstructor || isSourceCodeMethod;
     }
 
+    /**
+     * Pushes an int constant with the shortest available instruction.
+     */
+    public void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
     public MethodNode getMethodNode(ClassNode classNode,
                                     String name,
                                     String descriptor,
@@ -95,6 +109,87 @@ public class ASMHelper {
         return null;
     }
 
+    /**
+     * Derives the node the analysis works on from a node read with {@code ClassReader.EXPAND_FRAMES}. The result
+     * equals a node read with {@code ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES}: debug information and frames
+     * are dropped, as are labels that are only referenced by them, so instruction indices are the same.
+     */
+    public ClassNode createAnalysisNode(ClassNode classNode) {
+        ClassNode analysisNode = new ClassNode();
+        classNode.accept(new ClassVisitor(ASM8, analysisNode) {
+            private int methodIndex = 0;
+
+            @Override
+            public void visitSource(String source, String debug) {
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                MethodNode original = classNode.methods.get(methodIndex++);
+                MethodVisitor mv = super.visitMethod(access, name, descriptor, signature, exceptions);
+                return new MethodVisitor(ASM8, mv) {
+                    private final Set<Label> referenced = new HashSet<>();
+
+                    @Override
+                    public void visitCode() {
+                        // Labels are reset before the code is replayed, the fresh labels are used from now on
+                        for (TryCatchBlockNode tcb : original.tryCatchBlocks) {
+                            referenced.add(tcb.start.getLabel());
+                            referenced.add(tcb.end.getLabel());
+                            referenced.add(tcb.handler.getLabel());
+                        }
+                        // Type annotations of local variables are not debug information
+                        for (List<LocalVariableAnnotationNode> annotations : Arrays.asList(
+                                original.visibleLocalVariableAnnotations, original.invisibleLocalVariableAnnotations)) {
+                            if (annotations != null) {
+                                for (LocalVariableAnnotationNode annotation : annotations) {
+                                    annotation.start.forEach(l -> referenced.add(l.getLabel()));
+                                    annotation.end.forEach(l -> referenced.add(l.getLabel()));
+                                }
+                            }
+                        }
+                        for (AbstractInsnNode insn : original.instructions) {
+                            if (insn instanceof JumpInsnNode) {
+                                referenced.add(((JumpInsnNode) insn).label.getLabel());
+                            } else if (insn instanceof TableSwitchInsnNode) {
+                                referenced.add(((TableSwitchInsnNode) insn).dflt.getLabel());
+                                ((TableSwitchInsnNode) insn).labels.forEach(l -> referenced.add(l.getLabel()));
+                            } else if (insn instanceof LookupSwitchInsnNode) {
+                                referenced.add(((LookupSwitchInsnNode) insn).dflt.getLabel());
+                                ((LookupSwitchInsnNode) insn).labels.forEach(l -> referenced.add(l.getLabel()));
+                            }
+                        }
+                        super.visitCode();
+                    }
+
+                    @Override
+                    public void visitParameter(String name, int access) {
+                    }
+
+                    @Override
+                    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+                    }
+
+                    @Override
+                    public void visitLabel(Label label) {
+                        if (referenced.contains(label)) {
+                            super.visitLabel(label);
+                        }
+                    }
+
+                    @Override
+                    public void visitLineNumber(int line, Label start) {
+                    }
+
+                    @Override
+                    public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                    }
+                };
+            }
+        });
+        return analysisNode;
+    }
+
     public boolean isCallByValue(String desc) {
         // Primitive type descriptors in ASM are single characters:
         // B (byte), C (char), D (double), F (float), I (int), J (long), S (short), Z (boolean)
@@ -8,21 +8,28 @@ import static org.objectweb.asm.Opcodes.*;
 
 public class Constants {
     public static final String FIELD_TEST_DATA = "__jdfc_test_data";
-    public static final String FIELD_TEST_DATA_DESCRIPTOR = "Ljava/util/Map;";
-    public static final String FIELD_TEST_DATA_SIGNATURE = "Ljava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;";
+    public static final String FIELD_TEST_DATA_DESCRIPTOR = "[Z";
+    public static final String FIELD_TEST_DATA_COUNT_DESCRIPTOR = "[J";
 
     public static final String METHOD_INIT = "__jdfc_initialize";
-    public static final String METHOD_INIT_DESCRIPTOR = "()V";
+    public static final String METHOD_INIT_DESCRIPTOR = "()[Z";
+    public static final String METHOD_INIT_COUNT_DESCRIPTOR = "()[J";
 
     public static final String METHOD_TRACK = "__jdfc_track";
     public static final String METHOD_TRACK_DESCRIPTOR = "(Ljava/lang/String;)V";
 
     public static final String METHOD_GET_AND_RESET = "__jdfc_getAndReset";
-    public static final String METHOD_GET_AND_RESET_DESCRIPTOR = "()Ljava/util/Map;";
-    public static final String METHOD_GET_AND_RESET_SIGNATURE = "()Ljava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;";
+    public static final String METHOD_GET_AND_RESET_DESCRIPTOR = "()[Z";
+    public static final String METHOD_GET_AND_RESET_COUNT_DESCRIPTOR = "()[J";
 
     public static final String JDFC_DIR = ".jdfc_instrumented";
     public static final String JDFC_SERIALIZATION_FILE = "jdfc_data.ser";
+    /**
+     * Per-JVM file name, formatted with process id and start time of the JVM
+     */
+    public static final String JDFC_TEST_COVERAGE_FILE = "jdfc_tests-%s-%d.bin";
+    public static final String JDFC_TEST_COVERAGE_FILE_PREFIX = "jdfc_tests-";
+    public static final String JDFC_CACHE_DIR = ".jdfc_cache";
 
     public static final List<Integer> JUMP_OPCODES = Arrays.asList(
             IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE,
@@ -1,6 +1,5 @@
 package utils;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -13,6 +12,11 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -372,7 +376,7 @@ public class JDFCUtils {
     }
 
     public static List<MethodDeclaration> getMethodDeclList(File javaFile, String cName) throws FileNotFoundException {
-        CompilationUnit cu = StaticJavaParser.parse(javaFile);
+        CompilationUnit cu = JavaParserHelper.getInstance().parse(javaFile);
         Optional<ClassOrInterfaceDeclaration> ciOptional = cu.getClassByName(cName);
         if (ciOptional.isPresent()) {
             ClassOrInterfaceDeclaration ci = ciOptional.get();
@@ -403,7 +407,38 @@ public class JDFCUtils {
         }
     }
 
-    public static void logThis(String str, String fileName) {
+    /**
+     * Creates a name based id from the given parts. Ids only depend on the analysed class, so that repeated, serial
+     * or parallel instrumentation of a class yields the same ids and thus the same instrumented bytecode.
+     */
+    public static UUID createId(Object... parts) {
+        StringBuilder name = new StringBuilder();
+        for (Object part : parts) {
+            name.append(part).append('\0');
+        }
+        return UUID.nameUUIDFromBytes(name.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * @return hex encoded SHA-256 hash of the given bytes
+     */
+    public static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static synchronized void logThis(String str, String fileName) {
         Thread thread = Thread.currentThread();
         File log = createFileInDebugDevLogDir(fileName, false);
         try (FileWriter writer = new FileWriter(log, true)) {
@@ -450,14 +485,14 @@ public class JDFCUtils {
         String fileStr = String.format("%s%s%s", dir, File.separator, fileName);
         File file = new File(fileStr);
         if(isDir) {
-            if (file.exists() || file.mkdirs()) {
+            if (file.mkdirs() || file.exists()) {
                 return file;
             } else {
                 String message = String.format("File could not be created: %s", fileStr);
                 throw new RuntimeException(message);
             }
         } else {
-            if (dir.exists() || dir.mkdirs()) {
+            if (dir.mkdirs() || dir.exists()) {
                 return file;
             } else {
                 String message = String.format("File could not be created: %s", fileStr);
@@ -484,7 +519,26 @@ public class JDFCUtils {
         return String.format("%s%s%s", pwd, File.separator, Constants.JDFC_DIR);
     }
 
+    public static String getJDFCCacheDirAbs() {
+        if (JDFCUtils.workDir != null) {
+            return String.format("%s%s%s", JDFCUtils.workDir, File.separator, Constants.JDFC_CACHE_DIR);
+        }
+        String pwd = JDFCUtils.getPwd();
+        return String.format("%s%s%s", pwd, File.separator, Constants.JDFC_CACHE_DIR);
+    }
+
     public static String getJDFCSerFileAbs() {
         return String.format("%s%s%s", getJDFCDir(), File.separator, Constants.JDFC_SERIALIZATION_FILE);
     }
+
+    /**
+     * @return the per-test coverage file of this JVM, forked test JVMs write separate files
+     */
+    public static String getJDFCTestCoverageFileAbs() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        // The name of the runtime is "pid@host" on all common JVMs
+        String pid = runtime.getName().split("@")[0];
+        return String.format("%s%s%s", getJDFCDir(), File.separator,
+                String.format(Constants.JDFC_TEST_COVERAGE_FILE, pid, runtime.getStartTime()));
+    }
 }
@@ -1,6 +1,9 @@
 package utils;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
@@ -12,28 +15,117 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
+/**
+ * Parser and type solver shared by all classes of a source directory. An outer class and its inner classes live in the same
+ * source file, so parsed files are kept in a bounded cache keyed by path and modification time.
+ * <p>
+ * Parsing is thread-safe, every thread uses its own {@link JavaParser}. Symbol resolution is not, the caches of the
+ * type solver are shared, so it must be run through {@link #resolve(Supplier)}.
+ * <p>
+ * There is one instance per source directory, so a {@link ProjectData} that is loaded or configured for another
+ * project resolves its types against its own sources.
+ */
 public class JavaParserHelper {
 
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * Instances by source directory, the empty string if none is configured
+     */
+    private static final Map<String, JavaParserHelper> instances = new ConcurrentHashMap<>();
+
     private final Logger logger = LoggerFactory.getLogger(JavaParserHelper.class);
 
     private final CombinedTypeSolver combinedTypeSolver;
 
-    public JavaParserHelper() {
+    private final JavaSymbolSolver symbolSolver;
+
+    private final ThreadLocal<JavaParser> parser;
+
+    /**
+     * Parsed files by path and modification time in access order
+     */
+    private final Map<String, CompilationUnit> cache = new LinkedHashMap<String, CompilationUnit>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompilationUnit> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+
+    private JavaParserHelper(String sourceDir) {
         this.combinedTypeSolver = new CombinedTypeSolver();
         combinedTypeSolver.add(new ReflectionTypeSolver()); // For java standard library types
-        if(ProjectData.getInstance() != null) {
-            combinedTypeSolver.add(new JavaParserTypeSolver(new File(ProjectData.getInstance().getSourceDirRel()))); // For source code
+        if(!sourceDir.isEmpty()) {
+            combinedTypeSolver.add(new JavaParserTypeSolver(new File(sourceDir))); // For source code
         }
         // NOTE: in case libraries are required for the source code add
         // combinedTypeSolver.add(new JarTypeSolver("lib/your-library.jar")); // For library types
 
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(combinedTypeSolver);
-        StaticJavaParser.getParserConfiguration().setSymbolResolver(symbolSolver);
+        this.symbolSolver = new JavaSymbolSolver(combinedTypeSolver);
+        this.parser = ThreadLocal.withInitial(() ->
+                new JavaParser(new ParserConfiguration().setSymbolResolver(symbolSolver)));
+    }
+
+    /**
+     * @return the instance of the source directory of the current {@link ProjectData}
+     */
+    public static JavaParserHelper getInstance() {
+        ProjectData pData = ProjectData.getInstance();
+        String sourceDir = pData == null || pData.getSourceDirRel() == null ? "" : pData.getSourceDirRel();
+        return instances.computeIfAbsent(sourceDir, JavaParserHelper::new);
     }
 
     public CompilationUnit parse(File file) throws FileNotFoundException {
-       return StaticJavaParser.parse(file);
+        String key = file.getAbsolutePath() + "@" + file.lastModified();
+        synchronized (cache) {
+            CompilationUnit cu = cache.get(key);
+            if (cu != null) {
+                hits.increment();
+                return cu;
+            }
+        }
+
+        // Parse outside of the lock, a file that is parsed by two threads at once is simply parsed twice
+        misses.increment();
+        long start = System.nanoTime();
+        ParseResult<CompilationUnit> result = parser.get().parse(file);
+        parseNanos.add(System.nanoTime() - start);
+        if (!result.isSuccessful() || !result.getResult().isPresent()) {
+            throw new ParseProblemException(result.getProblems());
+        }
+        CompilationUnit cu = result.getResult().get();
+        synchronized (cache) {
+            cache.put(key, cu);
+        }
+        return cu;
+    }
+
+    /**
+     * Runs a symbol resolution, e.g. {@code declaration.resolve()}, on a node of a parsed file.
+     */
+    public <T> T resolve(Supplier<T> resolution) {
+        synchronized (combinedTypeSolver) {
+            return resolution.get();
+        }
+    }
+
+    public String getStatistics() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return String.format("Parsed %d source files in %d ms, cache hit rate %.2f (%d of %d)",
+                misses.sum(), TimeUnit.NANOSECONDS.toMillis(parseNanos.sum()),
+                total == 0 ? 0.0 : (double) hitCount / total, hitCount, total);
     }
 
 //    public String buildJvmAsmTypeDesc(Set<ResolvedType> resolvedTypes,
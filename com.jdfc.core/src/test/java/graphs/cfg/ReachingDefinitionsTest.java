@@ -0,0 +1,108 @@
+package graphs.cfg;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import data.ProgramVariable;
+import graphs.cfg.nodes.CFGNode;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link ReachingDefinitions} with the set based worklist that {@link CFG#calculateReachingDefinitions()}
+ * used before, on random graphs with loops, unreachable nodes and redefinitions.
+ */
+public class ReachingDefinitionsTest {
+
+    private static final String METHOD = "m";
+
+    @Test
+    public void equalsWorklistOnSmallRandomGraphs() {
+        for (long seed = 0; seed < 2000; seed++) {
+            assertSameResult(seed, 1 + new Random(seed).nextInt(40));
+        }
+    }
+
+    @Test
+    public void equalsWorklistOnLargeRandomGraphs() {
+        for (long seed = 0; seed < 5; seed++) {
+            assertSameResult(seed, 1000);
+        }
+    }
+
+    private static void assertSameResult(long seed, int size) {
+        CFG expected = randomCfg(seed, size);
+        for (CFGNode node : expected.getNodes().values()) {
+            node.resetReachOut();
+        }
+        worklist(expected.getNodes().values());
+
+        CFG actual = randomCfg(seed, size);
+        actual.calculateReachingDefinitions();
+
+        for (Integer index : expected.getNodes().keySet()) {
+            CFGNode expectedNode = expected.getNodes().get(index);
+            CFGNode actualNode = actual.getNodes().get(index);
+            String message = String.format("seed %d, size %d, node %d", seed, size, index);
+            assertEquals(message, new HashSet<>(expectedNode.getReach()), new HashSet<>(actualNode.getReach()));
+            assertEquals(message, new HashSet<>(expectedNode.getReachOut()), new HashSet<>(actualNode.getReachOut()));
+        }
+    }
+
+    /**
+     * The former implementation of {@link CFG#calculateReachingDefinitions()}
+     */
+    private static void worklist(Collection<CFGNode> nodes) {
+        LinkedList<CFGNode> workList = new LinkedList<>(nodes);
+        while (!workList.isEmpty()) {
+            CFGNode node = workList.poll();
+            Set<ProgramVariable> oldValue = Sets.newLinkedHashSet(node.getReachOut());
+            node.update();
+            if (!node.getReachOut().equals(oldValue)) {
+                workList.addAll(node.getSucc());
+            }
+        }
+    }
+
+    /**
+     * Builds a graph of {@code size} nodes that mostly fall through to the next node and jump forward or backward
+     * otherwise. Variables named like the method are killed by their redefinitions, see
+     * {@link CFGNode#isRedefinedVariable(ProgramVariable)}.
+     */
+    static CFG randomCfg(long seed, int size) {
+        Random random = new Random(seed);
+        String[] names = {METHOD, "a", "b", "c"};
+        NavigableMap<Integer, CFGNode> nodes = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            Set<ProgramVariable> definitions = new LinkedHashSet<>();
+            if (random.nextInt(3) == 0) {
+                String name = names[random.nextInt(names.length)];
+                definitions.add(new ProgramVariable(new UUID(seed, i), random.nextInt(4), "C", METHOD, name, "I", i,
+                        i, true, false, false));
+            }
+            CFGNode node = new CFGNode("C", METHOD, 0, i, definitions, new LinkedHashSet<>(), i, 0);
+            node.setIndex(i);
+            nodes.put(i, node);
+        }
+        Multimap<Integer, Integer> edges = ArrayListMultimap.create();
+        for (int i = 0; i < size; i++) {
+            if (i + 1 < size && random.nextInt(8) != 0) {
+                edges.put(i, i + 1);
+            }
+            if (random.nextInt(4) == 0) {
+                int target = random.nextInt(size);
+                if (!edges.containsEntry(i, target)) {
+                    edges.put(i, target);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> edge : edges.entries()) {
+            nodes.get(edge.getKey()).getSucc().add(nodes.get(edge.getValue()));
+            nodes.get(edge.getValue()).getPred().add(nodes.get(edge.getKey()));
+        }
+        return new CFG("C", METHOD, nodes, edges);
+    }
+}
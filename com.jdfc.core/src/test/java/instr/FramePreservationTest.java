@@ -0,0 +1,175 @@
+package instr;
+
+import ch.qos.logback.classic.Level;
+import data.ProjectData;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.util.CheckClassAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.JDFCUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instruments the test corpus with {@link ProjectData#isPreserveFrames()} set and checks every class with
+ * {@link CheckClassAdapter#verify} and the verifier of the JVM, which checks the stack map frames as well. Pair probes,
+ * loop flags and switchable probes fall back to computed frames, all other modes keep the original frames and add
+ * the frame of {@code __jdfc_initialize}.
+ */
+@RunWith(Parameterized.class)
+public class FramePreservationTest {
+
+    private static final File CLASSES_DIR = new File("src/test/resources/classes");
+
+    private static final String[] CORPUS = {
+            "com/jdfc/Branch",
+            "com/jdfc/Calculator",
+            "com/jdfc/Static",
+            "com/jdfc/ThreeProcedures",
+            "com/jdfc/TwoProcedures"
+    };
+
+    /**
+     * Original class files by class name, the classes are not in the package their path suggests.
+     */
+    private static final Map<String, byte[]> originals = new HashMap<>();
+
+    private static File workDir;
+
+    @Parameterized.Parameters(name = "{0} loopFlags={1} switchable={2}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{
+                {ProbeMode.STRING, false, false},
+                {ProbeMode.ARRAY, false, false},
+                {ProbeMode.COUNT, false, false},
+                {ProbeMode.PAIR, false, false},
+                {ProbeMode.ARRAY, true, false},
+                {ProbeMode.ARRAY, false, true},
+                {ProbeMode.PAIR, true, true}
+        });
+    }
+
+    @Parameterized.Parameter
+    public ProbeMode probeMode;
+
+    @Parameterized.Parameter(1)
+    public boolean loopFlags;
+
+    @Parameterized.Parameter(2)
+    public boolean switchableProbes;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        workDir = Files.createTempDirectory("jdfc-frames").toFile();
+        JDFCUtils.workDir = workDir;
+        ProjectData.getInstance().saveProjectInfo(workDir.getAbsolutePath(),
+                new File(workDir, "target").getAbsolutePath(), CLASSES_DIR.getAbsolutePath(), "src", false);
+        ProjectData.getInstance().setBytecodeOnly(true);
+        for (String path : CORPUS) {
+            byte[] classFile = Files.readAllBytes(new File(CLASSES_DIR, path + ".class").toPath());
+            originals.put(new ClassReader(classFile).getClassName().replace('/', '.'), classFile);
+        }
+    }
+
+    @Test
+    public void instrumentedClassesVerify() throws IOException, ClassNotFoundException {
+        ProjectData pData = ProjectData.getInstance();
+        pData.setProbeMode(probeMode);
+        pData.setLoopFlags(loopFlags);
+        pData.setSwitchableProbes(switchableProbes);
+        pData.setPreserveFrames(true);
+        Instrumenter instrumenter = new Instrumenter(workDir.getAbsolutePath(), CLASSES_DIR.getAbsolutePath(),
+                new File(workDir, "src").getAbsolutePath(), false);
+        assertEquals(probeMode != ProbeMode.PAIR && !loopFlags && !switchableProbes,
+                instrumenter.isFramePreserving());
+
+        for (String path : CORPUS) {
+            File classFile = new File(CLASSES_DIR, path + ".class");
+            byte[] instrumented = instrumenter.instrumentClass(Files.readAllBytes(classFile.toPath()),
+                    classFile.getAbsolutePath());
+            String name = new ClassReader(instrumented).getClassName().replace('/', '.');
+            CorpusClassLoader loader = new CorpusClassLoader(name, instrumented);
+
+            StringWriter verifierOutput = new StringWriter();
+            CheckClassAdapter.verify(new ClassReader(instrumented), loader, false, new PrintWriter(verifierOutput));
+            assertEquals(name, "", verifierOutput.toString());
+
+            if (probeMode.isArrayBased()) {
+                assertInitializeHasFrame(name, instrumented);
+            }
+            // Linking runs the type checking verifier on the stack map frames
+            try {
+                Class.forName(name, true, loader);
+            } catch (VerifyError e) {
+                fail(name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void assertInitializeHasFrame(String name, byte[] instrumented) {
+        ClassNode classNode = new ClassNode();
+        new ClassReader(instrumented).accept(classNode, 0);
+        MethodNode initialize = classNode.methods.stream()
+                .filter(m -> m.name.equals("__jdfc_initialize"))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(name + " has no __jdfc_initialize", initialize);
+        boolean hasFrame = false;
+        for (AbstractInsnNode insn : initialize.instructions) {
+            hasFrame |= insn.getType() == AbstractInsnNode.FRAME;
+        }
+        assertTrue(name + ": __jdfc_initialize has no frame", hasFrame);
+    }
+
+    /**
+     * Defines the instrumented class and the original versions of the other classes of the corpus.
+     */
+    private static class CorpusClassLoader extends ClassLoader {
+
+        private final String instrumentedName;
+
+        private final byte[] instrumented;
+
+        CorpusClassLoader(String instrumentedName, byte[] instrumented) {
+            super(FramePreservationTest.class.getClassLoader());
+            this.instrumentedName = instrumentedName;
+            this.instrumented = instrumented;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            byte[] classFile = name.equals(instrumentedName) ? instrumented : originals.get(name);
+            if (classFile == null) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    clazz = defineClass(name, classFile, 0, classFile.length);
+                }
+                if (resolve) {
+                    resolveClass(clazz);
+                }
+                return clazz;
+            }
+        }
+    }
+}
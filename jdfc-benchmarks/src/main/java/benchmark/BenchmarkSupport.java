@@ -0,0 +1,106 @@
+package benchmark;
+
+import ch.qos.logback.classic.Level;
+import data.ProjectData;
+import instr.Instrumenter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.JDFCUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Setup shared by the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    /**
+     * Internal names of the classes of the test corpus, i.e. the test resources of com.jdfc.core. The package of
+     * the class files is {@code com/jdfc}, see {@link #CORPUS_DIR}.
+     */
+    static final String[] CORPUS = {
+            "com/jdfc/Branch",
+            "com/jdfc/Calculator",
+            "com/jdfc/Static",
+            "com/jdfc/ThreeProcedures",
+            "com/jdfc/TwoProcedures"
+    };
+
+    private static final String CORPUS_DIR = "corpus/";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Points the JDFC work directory to a fresh temporary directory. Must be called before the first
+     * {@link data.ProjectData#getInstance()}, so that neither the coverage data of a previous run is loaded nor the
+     * shutdown hook writes its {@code .ser} file into the working directory of the benchmark.
+     *
+     * @return the temporary work directory
+     */
+    static File useTemporaryWorkDir() {
+        try {
+            File workDir = Files.createTempDirectory("jdfc-benchmark").toFile();
+            JDFCUtils.workDir = workDir;
+            return workDir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sets up {@link ProjectData} for the analysis of class files without sources in a temporary work directory and
+     * silences the per-class logging of the instrumentation.
+     *
+     * @return an instrumenter for the classes of the {@link #CORPUS}
+     */
+    static Instrumenter createInstrumenter() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        File workDir = useTemporaryWorkDir();
+        File classesDir = new File(workDir, "classes");
+        ProjectData pData = ProjectData.getInstance();
+        pData.saveProjectInfo(workDir.getAbsolutePath(), new File(workDir, "target").getAbsolutePath(),
+                classesDir.getAbsolutePath(), "src", false);
+        pData.setBytecodeOnly(true);
+        return new Instrumenter(workDir.getAbsolutePath(), classesDir.getAbsolutePath(),
+                new File(workDir, "src").getAbsolutePath(), false);
+    }
+
+    /**
+     * @param path path of a class file relative to the classes directory, without extension
+     * @return the absolute path the class file would have in the classes directory of {@link #createInstrumenter()}
+     */
+    static String classFileAbs(String path) {
+        return new File(ProjectData.getInstance().getClassesDir(), path + ".class").getAbsolutePath();
+    }
+
+    static byte[] readCorpusClass(String internalName) {
+        return readClass(CORPUS_DIR + internalName);
+    }
+
+    /**
+     * @param path resource path of a class file on the class path of the benchmarks, without extension
+     * @return the content of the class file
+     */
+    static byte[] readClass(String path) {
+        try (InputStream in = BenchmarkSupport.class.getClassLoader().getResourceAsStream(path + ".class")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing class " + path);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
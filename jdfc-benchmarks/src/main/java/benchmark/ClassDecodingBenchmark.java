@@ -0,0 +1,168 @@
+package benchmark;
+
+import data.ClassData;
+import data.MethodData;
+import data.ProjectData;
+import data.visitors.CreateClassDataVisitor;
+import graphs.cfg.visitors.classVisitors.CFGClassVisitor;
+import graphs.cfg.visitors.classVisitors.LocalVariableClassVisitor;
+import instr.ClassMetaData;
+import instr.classVisitors.InstrumentationClassVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+import utils.ASMHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intra-procedural instrumentation of the test corpus with the stages of {@link instr.Instrumenter}: class data
+ * creation, local variable discovery, CFG construction, def-use pairs and probe insertion. {@link #sharedTree()}
+ * decodes every class once and replays the tree for all stages, {@link #repeatedPasses()} decodes it once per stage
+ * with {@link ClassReader#accept(ClassVisitor, int)}.
+ * <p>
+ * Most of the pipeline is spent building CFGs and pairs, so {@link #decodeSharedTree()} and
+ * {@link #decodeRepeatedPasses()} repeat the same decoding with empty visitors to show its share.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassDecodingBenchmark {
+
+    private final ASMHelper asmHelper = new ASMHelper();
+
+    private byte[][] classFiles;
+
+    private String[] classFileAbs;
+
+    private String classesDirAbs;
+
+    private String sourceDirAbs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.createInstrumenter();
+        ProjectData pData = ProjectData.getInstance();
+        classesDirAbs = pData.getClassesDir().getAbsolutePath();
+        sourceDirAbs = pData.getWorkDir().getAbsolutePath();
+        classFiles = new byte[BenchmarkSupport.CORPUS.length][];
+        classFileAbs = new String[BenchmarkSupport.CORPUS.length];
+        for (int i = 0; i < BenchmarkSupport.CORPUS.length; i++) {
+            classFiles[i] = BenchmarkSupport.readCorpusClass(BenchmarkSupport.CORPUS[i]);
+            classFileAbs[i] = BenchmarkSupport.classFileAbs(BenchmarkSupport.CORPUS[i]);
+        }
+    }
+
+    @Benchmark
+    public int sharedTree() {
+        int size = 0;
+        for (int i = 0; i < classFiles.length; i++) {
+            ClassReader classReader = new ClassReader(classFiles[i]);
+            ClassNode sourceNode = new ClassNode();
+            classReader.accept(sourceNode, ClassReader.EXPAND_FRAMES);
+            ClassNode classNode = asmHelper.createAnalysisNode(sourceNode);
+            ClassWriter cw = new ClassWriter(classReader, ClassWriter.COMPUTE_FRAMES);
+
+            CreateClassDataVisitor createClassDataVisitor = new CreateClassDataVisitor(classNode, newMetaData(i));
+            sourceNode.accept(createClassDataVisitor);
+            ClassData classData = createClassDataVisitor.getClassData();
+            sourceNode.accept(new LocalVariableClassVisitor(classNode, classData));
+            sourceNode.accept(new CFGClassVisitor(classNode, classData));
+            calculateDefUsePairs(classData);
+            sourceNode.accept(new InstrumentationClassVisitor(cw, classNode, classData));
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int repeatedPasses() {
+        int size = 0;
+        for (int i = 0; i < classFiles.length; i++) {
+            ClassReader classReader = new ClassReader(classFiles[i]);
+            ClassNode classNode = new ClassNode();
+            classReader.accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            ClassWriter cw = new ClassWriter(classReader, ClassWriter.COMPUTE_FRAMES);
+
+            CreateClassDataVisitor createClassDataVisitor = new CreateClassDataVisitor(classNode, newMetaData(i));
+            classReader.accept(createClassDataVisitor, 0);
+            ClassData classData = createClassDataVisitor.getClassData();
+            classReader.accept(new LocalVariableClassVisitor(classNode, classData), ClassReader.EXPAND_FRAMES);
+            classReader.accept(new CFGClassVisitor(classNode, classData), ClassReader.EXPAND_FRAMES);
+            calculateDefUsePairs(classData);
+            classReader.accept(new InstrumentationClassVisitor(cw, classNode, classData), ClassReader.EXPAND_FRAMES);
+            size += cw.toByteArray().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int decodeSharedTree() {
+        int size = 0;
+        ClassVisitor empty = new CodeVisitor();
+        for (byte[] classFile : classFiles) {
+            ClassNode sourceNode = new ClassNode();
+            new ClassReader(classFile).accept(sourceNode, ClassReader.EXPAND_FRAMES);
+            ClassNode classNode = asmHelper.createAnalysisNode(sourceNode);
+            for (int stage = 0; stage < 4; stage++) {
+                sourceNode.accept(empty);
+            }
+            size += classNode.methods.size();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int decodeRepeatedPasses() {
+        int size = 0;
+        ClassVisitor empty = new CodeVisitor();
+        for (byte[] classFile : classFiles) {
+            ClassReader classReader = new ClassReader(classFile);
+            ClassNode classNode = new ClassNode();
+            classReader.accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            classReader.accept(empty, 0);
+            for (int stage = 0; stage < 3; stage++) {
+                classReader.accept(empty, ClassReader.EXPAND_FRAMES);
+            }
+            size += classNode.methods.size();
+        }
+        return size;
+    }
+
+    /**
+     * Visits the code of every method without doing anything, like the stages do.
+     */
+    private static class CodeVisitor extends ClassVisitor {
+
+        private final MethodVisitor methodVisitor = new MethodVisitor(Opcodes.ASM8) {};
+
+        CodeVisitor() {
+            super(Opcodes.ASM8);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            return methodVisitor;
+        }
+    }
+
+    private ClassMetaData newMetaData(int i) {
+        return new ClassMetaData(classesDirAbs, sourceDirAbs, classFileAbs[i]);
+    }
+
+    private static void calculateDefUsePairs(ClassData classData) {
+        for (MethodData mData : classData.getMethodDataFromStore().values()) {
+            if (mData.getCfg() != null) {
+                mData.getCfg().calculateReachingDefinitions();
+                mData.calculateIntraProcDefUsePairs();
+            }
+        }
+    }
+}
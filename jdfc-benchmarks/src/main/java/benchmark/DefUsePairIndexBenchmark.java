@@ -0,0 +1,89 @@
+package benchmark;
+
+import data.PairData;
+import data.ProjectData;
+import instr.Instrumenter;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentation time of the test corpus in a project that already holds {@code pairsInProject} def-use pairs of
+ * other classes. Every shot instruments the corpus renamed into a new package, so all of its pairs are new to the project
+ * and have to be checked against all stored pairs. With a linear scan the time grows with the size of the project,
+ * with the index of {@link ProjectData#putDefUsePair(PairData)} it stays flat.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DefUsePairIndexBenchmark {
+
+    @Param({"0", "10000", "100000"})
+    public int pairsInProject;
+
+    private Instrumenter instrumenter;
+
+    private byte[][] classFiles;
+
+    private String[] classNames;
+
+    private byte[][] renamedClassFiles;
+
+    private String[] renamedClassFileAbs;
+
+    private int shot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        instrumenter = BenchmarkSupport.createInstrumenter();
+        classFiles = new byte[BenchmarkSupport.CORPUS.length][];
+        classNames = new String[BenchmarkSupport.CORPUS.length];
+        for (int i = 0; i < BenchmarkSupport.CORPUS.length; i++) {
+            classFiles[i] = BenchmarkSupport.readCorpusClass(BenchmarkSupport.CORPUS[i]);
+            classNames[i] = new ClassReader(classFiles[i]).getClassName();
+        }
+        ProjectData pData = ProjectData.getInstance();
+        for (int i = 0; i < pairsInProject; i++) {
+            pData.putDefUsePair(new PairData(UUID.randomUUID(), "Other", "m()V", UUID.randomUUID(), UUID.randomUUID()));
+        }
+    }
+
+    /**
+     * Ids are derived from class names, so renamed classes yield new pairs.
+     */
+    @Setup(Level.Invocation)
+    public void renameCorpus() {
+        String prefix = "shot" + shot++ + "/";
+        Map<String, String> mapping = new HashMap<>();
+        for (String className : classNames) {
+            mapping.put(className, prefix + className);
+        }
+        renamedClassFiles = new byte[classFiles.length][];
+        renamedClassFileAbs = new String[classFiles.length];
+        for (int i = 0; i < classFiles.length; i++) {
+            ClassWriter writer = new ClassWriter(0);
+            new ClassReader(classFiles[i]).accept(new ClassRemapper(writer, new SimpleRemapper(mapping)), 0);
+            renamedClassFiles[i] = writer.toByteArray();
+            renamedClassFileAbs[i] = BenchmarkSupport.classFileAbs(prefix + classNames[i]);
+        }
+    }
+
+    @Benchmark
+    public int instrumentCorpus() {
+        int size = 0;
+        for (int i = 0; i < renamedClassFiles.length; i++) {
+            size += instrumenter.instrumentClass(renamedClassFiles[i], renamedClassFileAbs[i]).length;
+        }
+        return size;
+    }
+}
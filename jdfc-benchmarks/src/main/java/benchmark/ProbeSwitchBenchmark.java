@@ -0,0 +1,96 @@
+package benchmark;
+
+import data.ProbeSwitch;
+import data.ProjectData;
+import instr.Instrumenter;
+import instr.ProbeMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Cost of the probes of {@link ProbeMode#ARRAY} with and without {@link ProbeSwitch}. {@link ProbeSwitchWorkload}
+ * is instrumented by {@link Instrumenter} and compared to an uninstrumented copy loaded the same way:
+ * <ul>
+ *     <li>{@code uninstrumented}: the original class file</li>
+ *     <li>{@code probes}: unguarded probes</li>
+ *     <li>{@code switchableOn}, {@code switchableOff}: probes guarded by the {@code invokedynamic} switch, with the
+ *     switch on and off</li>
+ * </ul>
+ * With the switch off the guarded probes should cost roughly the same as the uninstrumented class.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProbeSwitchBenchmark {
+
+    private static final int ITERATIONS = 1024;
+
+    private static final String WORKLOAD = "benchmark/ProbeSwitchWorkload";
+
+    @Param({"uninstrumented", "probes", "switchableOn", "switchableOff"})
+    public String variant;
+
+    private IntUnaryOperator workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        Instrumenter instrumenter = BenchmarkSupport.createInstrumenter();
+        ProjectData pData = ProjectData.getInstance();
+        pData.setProbeMode(ProbeMode.ARRAY);
+        pData.setSwitchableProbes(variant.startsWith("switchable"));
+        ProbeSwitch.setEnabled(!variant.equals("switchableOff"));
+
+        byte[] classFile = BenchmarkSupport.readClass(WORKLOAD);
+        if (!variant.equals("uninstrumented")) {
+            classFile = instrumenter.instrumentClass(classFile, BenchmarkSupport.classFileAbs(WORKLOAD));
+        }
+        Class<?> workloadClass = new WorkloadClassLoader(classFile).loadClass(WORKLOAD.replace('/', '.'));
+        workload = (IntUnaryOperator) workloadClass.getConstructor().newInstance();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ProbeSwitch.setEnabled(true);
+    }
+
+    @Benchmark
+    public int workload() {
+        return workload.applyAsInt(ITERATIONS);
+    }
+
+    /**
+     * Defines the given class file of the workload instead of the one on the class path, all other classes are
+     * shared with the benchmark.
+     */
+    private static class WorkloadClassLoader extends ClassLoader {
+
+        private final byte[] classFile;
+
+        WorkloadClassLoader(byte[] classFile) {
+            super(ProbeSwitchBenchmark.class.getClassLoader());
+            this.classFile = classFile;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(WORKLOAD.replace('/', '.'))) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    clazz = defineClass(name, classFile, 0, classFile.length);
+                }
+                if (resolve) {
+                    resolveClass(clazz);
+                }
+                return clazz;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package benchmark;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Loop instrumented by {@link ProbeSwitchBenchmark}. Every iteration executes the probes of the loop header and of
+ * one branch.
+ */
+public class ProbeSwitchWorkload implements IntUnaryOperator {
+
+    @Override
+    public int applyAsInt(int iterations) {
+        int sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            int x = i * 3;
+            if ((x & 1) == 0) {
+                sum += x;
+            } else {
+                sum -= i;
+            }
+        }
+        return sum;
+    }
+}
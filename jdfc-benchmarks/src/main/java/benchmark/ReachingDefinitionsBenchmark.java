@@ -0,0 +1,106 @@
+package benchmark;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import data.ProgramVariable;
+import graphs.cfg.CFG;
+import graphs.cfg.nodes.CFGNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reaching definitions of large synthetic methods, computed by {@link CFG#calculateReachingDefinitions()} and by the
+ * set based worklist it used before. The graphs mostly fall through, branch forward and contain loops, one node in
+ * three defines one of {@code variables} variables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReachingDefinitionsBenchmark {
+
+    private static final String METHOD = "m";
+
+    @Param({"1000", "5000"})
+    public int instructions;
+
+    @Param({"50"})
+    public int variables;
+
+    private CFG cfg;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cfg = createCfg(new Random(42), instructions, variables);
+    }
+
+    /**
+     * Both implementations accumulate into reach, so every invocation starts from empty sets.
+     */
+    @Setup(Level.Invocation)
+    public void reset() {
+        for (CFGNode node : cfg.getNodes().values()) {
+            node.setReach(new LinkedHashSet<>());
+            node.setReachOut(new LinkedHashSet<>());
+        }
+    }
+
+    @Benchmark
+    public CFG bitVectors() {
+        cfg.calculateReachingDefinitions();
+        return cfg;
+    }
+
+    @Benchmark
+    public CFG worklist() {
+        LinkedList<CFGNode> workList = new LinkedList<>(cfg.getNodes().values());
+        while (!workList.isEmpty()) {
+            CFGNode node = workList.poll();
+            Set<ProgramVariable> oldValue = Sets.newLinkedHashSet(node.getReachOut());
+            node.update();
+            if (!node.getReachOut().equals(oldValue)) {
+                workList.addAll(node.getSucc());
+            }
+        }
+        return cfg;
+    }
+
+    private static CFG createCfg(Random random, int size, int variables) {
+        NavigableMap<Integer, CFGNode> nodes = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            Set<ProgramVariable> definitions = new LinkedHashSet<>();
+            if (i % 3 == 0) {
+                int variable = random.nextInt(variables);
+                // Definitions named like the method kill each other, see CFGNode#isRedefinedVariable
+                String name = variable == 0 ? METHOD : "v" + variable;
+                definitions.add(new ProgramVariable(new UUID(variable, i), variable, "C", METHOD, name, "I", i, i,
+                        true, false, false));
+            }
+            CFGNode node = new CFGNode("C", METHOD, 0, i, definitions, new LinkedHashSet<>(), i, 0);
+            node.setIndex(i);
+            nodes.put(i, node);
+        }
+        Multimap<Integer, Integer> edges = ArrayListMultimap.create();
+        for (int i = 0; i + 1 < size; i++) {
+            edges.put(i, i + 1);
+            int kind = random.nextInt(16);
+            if (kind == 0 && i > 0) {
+                // Loop back over up to 64 instructions
+                edges.put(i, Math.max(0, i - 1 - random.nextInt(64)));
+            } else if (kind < 4 && i + 2 < size) {
+                // Branch forward over up to 32 instructions
+                edges.put(i, Math.min(size - 1, i + 2 + random.nextInt(32)));
+            }
+        }
+        for (Map.Entry<Integer, Integer> edge : edges.entries()) {
+            nodes.get(edge.getKey()).getSucc().add(nodes.get(edge.getValue()));
+            nodes.get(edge.getValue()).getPred().add(nodes.get(edge.getKey()));
+        }
+        return new CFG("C", METHOD, nodes, edges);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import data.ProjectData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended throughput of the {@link instr.ProbeMode#STRING} probe, i.e. {@link ProjectData#trackVar(String)}, with
+ * the shared covered set and with per-thread buffers. All variables are recorded once during setup, so the
+ * benchmark measures repeated hits as they occur in tests. Throughput should grow with the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackVarBenchmark {
+
+    private static final int VARIABLES = 1024;
+
+    @Param({"false", "true"})
+    public boolean perThreadBuffers;
+
+    private String[] ids;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.useTemporaryWorkDir();
+        ProjectData.getInstance().setPerThreadBuffers(perThreadBuffers);
+        ids = new String[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++) {
+            // Probes load their id from the constant pool, i.e. an interned string
+            ids[i] = UUID.nameUUIDFromBytes(new byte[]{(byte) i, (byte) (i >>> 8)}).toString().intern();
+            ProjectData.trackVar(ids[i]);
+        }
+    }
+
+    private void track(Cursor cursor) {
+        ProjectData.trackVar(ids[cursor.next++ & (VARIABLES - 1)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads1(Cursor cursor) {
+        track(cursor);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void threads2(Cursor cursor) {
+        track(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void threads4(Cursor cursor) {
+        track(cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void threads8(Cursor cursor) {
+        track(cursor);
+    }
+}
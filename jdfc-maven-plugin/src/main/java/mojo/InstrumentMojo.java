@@ -35,6 +35,51 @@ public class InstrumentMojo extends AbstractMojo {
     @Parameter(property = "instrument.scope", defaultValue = "intra")
     private String scope;
 
+    @Parameter(property = "instrument.probes", defaultValue = "string")
+    private String probes;
+
+    @Parameter(property = "instrument.perThreadBuffers", defaultValue = "false")
+    private boolean perThreadBuffers;
+
+    @Parameter(property = "instrument.perTest", defaultValue = "false")
+    private boolean perTest;
+
+    @Parameter(property = "instrument.minimizeProbes", defaultValue = "false")
+    private boolean minimizeProbes;
+
+    @Parameter(property = "instrument.loopFlags", defaultValue = "false")
+    private boolean loopFlags;
+
+    @Parameter(property = "instrument.switchableProbes", defaultValue = "false")
+    private boolean switchableProbes;
+
+    @Parameter(property = "instrument.preserveFrames", defaultValue = "false")
+    private boolean preserveFrames;
+
+    @Parameter(property = "instrument.bytecodeOnly", defaultValue = "false")
+    private boolean bytecodeOnly;
+
+    /**
+     * Lets the agent reuse instrumented classes of previous test runs. Forked test JVMs share the cache.
+     */
+    @Parameter(property = "instrument.cache", defaultValue = "false")
+    private boolean cache;
+
+    @Parameter(property = "instrument.probesEnabled", defaultValue = "true")
+    private boolean probesEnabled;
+
+    /**
+     * Class name patterns to instrument separated by ':', e.g. {@code com.example.*}
+     */
+    @Parameter(property = "instrument.includes")
+    private String includes;
+
+    /**
+     * Class name patterns not to instrument separated by ':'
+     */
+    @Parameter(property = "instrument.excludes")
+    private String excludes;
+
     static final String ARG_LINE = "argLine";
     static final String AGENT_ARTIFACT_NAME = "com.jdfc:com.jdfc.agent";
 
@@ -54,6 +99,22 @@ public class InstrumentMojo extends AbstractMojo {
 
         // create command line arguments for agent
         final List<String> agentArgsList = Lists.newArrayList(workDirAbs, buildDirRel, classesDirRel, sourceDirRel, scope);
+        agentArgsList.add(format("probes=%s", probes));
+        agentArgsList.add(format("perThreadBuffers=%s", perThreadBuffers));
+        agentArgsList.add(format("perTest=%s", perTest));
+        agentArgsList.add(format("minimizeProbes=%s", minimizeProbes));
+        agentArgsList.add(format("loopFlags=%s", loopFlags));
+        agentArgsList.add(format("switchableProbes=%s", switchableProbes));
+        agentArgsList.add(format("preserveFrames=%s", preserveFrames));
+        agentArgsList.add(format("bytecodeOnly=%s", bytecodeOnly));
+        agentArgsList.add(format("cache=%s", cache));
+        agentArgsList.add(format("probesEnabled=%s", probesEnabled));
+        if (includes != null && !includes.isEmpty()) {
+            agentArgsList.add(format("includes=%s", includes));
+        }
+        if (excludes != null && !excludes.isEmpty()) {
+            agentArgsList.add(format("excludes=%s", excludes));
+        }
         final String agentArgs = String.join(",", agentArgsList);
         final String agent = format("-javaagent:%s", getAgentJarFile());
         String newValue;